@@ -8,6 +8,17 @@ USE bank_system;
 -- ALTER TABLE bank_user ADD COLUMN status TINYINT DEFAULT 1 AFTER balance;
 -- ALTER TABLE bank_user ADD COLUMN create_time DATETIME DEFAULT CURRENT_TIMESTAMP AFTER status;
 -- ALTER TABLE bank_user ADD COLUMN update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP AFTER create_time;
+-- ALTER TABLE bank_user ADD COLUMN version BIGINT NOT NULL DEFAULT 0 AFTER update_time;
+-- ALTER TABLE bank_operation_log ADD COLUMN record_id CHAR(36) AFTER id, ADD UNIQUE KEY uk_log_record_id (record_id);
+-- 已有的操作日志表改为按月分区（外键名以SHOW CREATE TABLE为准；分区表不支持外键，主键和唯一键必须包含create_time）：
+-- ALTER TABLE bank_operation_log DROP FOREIGN KEY bank_operation_log_ibfk_1;
+-- ALTER TABLE bank_operation_log MODIFY create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+--     DROP PRIMARY KEY, ADD PRIMARY KEY (id, create_time),
+--     DROP INDEX uk_log_record_id, ADD UNIQUE KEY uk_log_record_id (record_id, create_time);
+-- ALTER TABLE bank_operation_log PARTITION BY RANGE COLUMNS(create_time) (PARTITION pmax VALUES LESS THAN (MAXVALUE));
+-- 已有的操作日志单列索引换成带create_time的复合索引（前缀相同，旧索引可删除）：
+-- DROP INDEX idx_log_admin_id ON bank_operation_log;
+-- DROP INDEX idx_log_operation_type ON bank_operation_log;
 
 -- 创建用户表（如果不存在）
 CREATE TABLE IF NOT EXISTS bank_user (
@@ -19,7 +30,48 @@ CREATE TABLE IF NOT EXISTS bank_user (
     balance DECIMAL(10,2) DEFAULT 0.00, -- 余额
     status TINYINT DEFAULT 1,          -- 账号状态：1-正常，0-已注销
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP, -- 创建时间
-    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP -- 更新时间
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, -- 更新时间
+    version BIGINT NOT NULL DEFAULT 0  -- 版本号，每次修改余额或状态加1，用于乐观并发控制
+);
+
+-- 创建序列表（账号分配器按号段推进next_value，号段内的账号在内存中分配）
+CREATE TABLE IF NOT EXISTS bank_sequence (
+    name VARCHAR(32) PRIMARY KEY,       -- 序列名称
+    next_value BIGINT NOT NULL          -- 已预留的高水位，下一个号段从这里开始
+);
+
+INSERT IGNORE INTO bank_sequence (name, next_value) VALUES ('user_account', 0);
+
+-- 创建资金流水表（只追加不修改，与余额变动在同一事务中写入）
+-- 自增主键单调递增，插入总在聚簇索引末尾；行只保存定长的窄字段，不建外键以免写入时额外加锁检查
+CREATE TABLE IF NOT EXISTS bank_transaction (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,  -- 流水ID
+    account VARCHAR(11) NOT NULL,          -- 余额发生变动的账号
+    counterparty VARCHAR(11),              -- 对方账号（仅转账）
+    amount DECIMAL(10,2) NOT NULL,         -- 变动金额，入账为正，出账为负
+    type TINYINT NOT NULL,                 -- 类型：1-开户，2-存款，3-取款，4-转出，5-转入，6-余额调整
+    balance_after DECIMAL(10,2),           -- 变动后的余额（条带账户的存款记在子行上，为空）
+    create_time DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3), -- 记账时间
+    INDEX idx_txn_account_id (account, id)
+);
+
+-- 创建热点账户余额条带表（高并发入账的账户把存款分散到多个子行，后台定期归并回bank_user）
+-- 账户余额 = bank_user.balance + 本表该账户所有子行之和
+CREATE TABLE IF NOT EXISTS bank_balance_stripe (
+    account VARCHAR(11) NOT NULL,                  -- 账号
+    stripe TINYINT NOT NULL,                       -- 子行序号，从0开始
+    balance DECIMAL(10,2) NOT NULL DEFAULT 0.00,   -- 尚未归并的入账金额
+    PRIMARY KEY (account, stripe)
+);
+
+-- 创建幂等键表（带请求键的存款、取款、转账先占用键再执行，成功后保存结果，重复提交直接返回保存的结果）
+CREATE TABLE IF NOT EXISTS bank_idempotency_key (
+    request_key VARCHAR(64) PRIMARY KEY,   -- 请求键，由客户端生成，重试时保持不变
+    operation VARCHAR(64) NOT NULL,        -- 操作描述：操作名称及对方账号、金额
+    account VARCHAR(11) NOT NULL,          -- 发起操作的账号
+    state TINYINT NOT NULL DEFAULT 0,      -- 状态：0-处理中，1-已完成
+    result VARCHAR(64),                    -- 操作结果（已完成时有值）
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP -- 占用时间
 );
 
 -- 创建管理员表
@@ -45,9 +97,12 @@ INSERT INTO bank_admin (username, password, name, role) VALUES
 INSERT INTO bank_admin (username, password, name, phone, role) VALUES
 ('operator', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi', '操作员', '13800138000', 'operator');
 
--- 创建操作日志表
+-- 创建操作日志表（按create_time按月分区）
+-- 建表时只有pmax一个分区，应用启动后由LogPartitionManager从pmax中拆出当月及之后几个月的分区，
+-- 并按保留期删除（或归档后删除）过期的月分区；分区表不支持外键，admin_id不再引用bank_admin
 CREATE TABLE IF NOT EXISTS bank_operation_log (
-    id BIGINT PRIMARY KEY AUTO_INCREMENT,  -- 日志ID
+    id BIGINT AUTO_INCREMENT,              -- 日志ID
+    record_id CHAR(36),                     -- 记录ID（UUID），从本地日志文件补写时据此去重
     admin_id INT,                           -- 管理员ID
     admin_name VARCHAR(50),                 -- 管理员姓名
     operation_type VARCHAR(50),             -- 操作类型
@@ -56,18 +111,31 @@ CREATE TABLE IF NOT EXISTS bank_operation_log (
     ip_address VARCHAR(45),                 -- IP地址
     status TINYINT DEFAULT 1,               -- 操作状态：1-成功，0-失败
     error_message VARCHAR(500),             -- 错误信息（如果失败）
-    create_time DATETIME DEFAULT CURRENT_TIMESTAMP, -- 操作时间
-    FOREIGN KEY (admin_id) REFERENCES bank_admin(id)
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, -- 操作时间，分区键
+    PRIMARY KEY (id, create_time),
+    UNIQUE KEY uk_log_record_id (record_id, create_time)
+)
+PARTITION BY RANGE COLUMNS(create_time) (
+    PARTITION pmax VALUES LESS THAN (MAXVALUE)
 );
 
 -- 创建索引提高查询效率（如果索引不存在会报错，可忽略）
-CREATE INDEX idx_log_admin_id ON bank_operation_log(admin_id);
+-- 操作日志键集分页索引：按条件列等值过滤后按(create_time, id)倒序翻页，InnoDB二级索引末尾自带主键列
+CREATE INDEX idx_log_admin_create_time ON bank_operation_log(admin_id, create_time);
 CREATE INDEX idx_log_create_time ON bank_operation_log(create_time);
-CREATE INDEX idx_log_operation_type ON bank_operation_log(operation_type);
+CREATE INDEX idx_log_type_create_time ON bank_operation_log(operation_type, create_time);
+CREATE INDEX idx_log_account_create_time ON bank_operation_log(target_account, create_time);
 
 -- 仅当status字段已存在时才创建索引
 -- CREATE INDEX idx_user_status ON bank_user(status);
 
+-- 用户列表键集分页索引：按(create_time, account)倒序翻页，按状态筛选时使用带status前缀的索引
+CREATE INDEX idx_user_create_time_account ON bank_user(create_time, account);
+CREATE INDEX idx_user_status_create_time_account ON bank_user(status, create_time, account);
+
+-- 幂等键按占用时间定期删除超过保留期的记录
+CREATE INDEX idx_idempotency_create_time ON bank_idempotency_key(create_time);
+
 -- 插入测试用户数据（可选）
 INSERT INTO bank_user (account, name, password, phone, id_card, balance) VALUES
 ('13800138000', '张三', '123456', '13800138000', '110101199001011234', 1000.00),
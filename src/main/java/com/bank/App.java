@@ -1,5 +1,9 @@
 package com.bank;
 
+import com.bank.service.impl.AccountExistenceFilter;
+import com.bank.service.impl.IdempotencyGuard;
+import com.bank.service.impl.LogPartitionManager;
+import com.bank.service.impl.LogSearchIndex;
 import com.bank.view.LoginFrame;
 
 /**
@@ -15,6 +19,15 @@ public class App {
      * @param args 命令行参数，当前版本未使用
      */
     public static void main(String[] args) {
+        // 后台构建账号存在性过滤器，构建完成前账号查询直接访问数据库
+        AccountExistenceFilter.buildAsync();
+        // 后台维护操作日志的月分区：提前建好后续月份，删除超过保留期的月份
+        LogPartitionManager.start();
+        // 后台加载最近的操作日志到全文索引，之后定期从数据库增量读取新日志
+        LogSearchIndex.buildAsync();
+        // 后台删除超过保留期的幂等请求键，键表大小与去重窗口内的请求数相当
+        IdempotencyGuard.start();
+
         // 使用SwingUtilities.invokeLater确保UI在事件调度线程中初始化
         // 这是Swing多线程编程的最佳实践，避免并发访问问题
         java.awt.EventQueue.invokeLater(new Runnable() {
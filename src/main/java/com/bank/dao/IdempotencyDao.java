@@ -0,0 +1,51 @@
+package com.bank.dao;
+
+import com.bank.entity.IdempotencyRecord;
+
+/**
+ * 幂等键数据访问接口
+ * 基于bank_idempotency_key表实现"先占用、后完成"：请求执行前以主键唯一性占用键，
+ * 执行成功后写入结果，明确被拒绝时释放键以便重试，结果未知时键保持处理中；超过保留期的键定期删除
+ */
+public interface IdempotencyDao {
+    /**
+     * 占用请求键
+     * @param requestKey 请求键
+     * @param operation 操作描述（操作名称及参数）
+     * @param account 发起操作的账号
+     * @return 本次占用成功返回true；键已存在或写入失败返回false
+     */
+    boolean claim(String requestKey, String operation, String account);
+
+    /**
+     * 根据请求键查询记录
+     * @param requestKey 请求键
+     * @return 幂等键记录，不存在或查询失败返回null
+     */
+    IdempotencyRecord findByKey(String requestKey);
+
+    /**
+     * 标记操作完成并保存结果
+     * @param requestKey 请求键
+     * @param result 操作结果的序列化形式
+     * @return 成功返回true
+     */
+    boolean complete(String requestKey, String result);
+
+    /**
+     * 释放未完成的请求键
+     * 操作被明确拒绝、确定未改变任何余额时调用，已完成的键不会被删除
+     * @param requestKey 请求键
+     * @return 成功返回true
+     */
+    boolean release(String requestKey);
+
+    /**
+     * 删除占用时间早于保留期的请求键
+     * 按数据库时钟计算保留期，与create_time同一个时钟；每次最多删除limit行，避免长时间持有大量行锁
+     * @param retentionSeconds 保留期（秒）
+     * @param limit 本次最多删除的行数
+     * @return 删除的行数，失败返回-1
+     */
+    int purgeExpired(long retentionSeconds, int limit);
+}
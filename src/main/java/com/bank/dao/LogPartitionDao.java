@@ -0,0 +1,44 @@
+package com.bank.dao;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 操作日志分区数据访问接口
+ * bank_operation_log按create_time按月做RANGE COLUMNS分区，月分区命名为pYYYYMM，
+ * 末尾的pmax分区接收尚未建分区的时间段
+ */
+public interface LogPartitionDao {
+    /**
+     * 查询操作日志表的分区名
+     * @return 按分区顺序排列的分区名；表未分区或查询失败返回空列表
+     */
+    List<String> findPartitionNames();
+
+    /**
+     * 从pmax中拆出一个月分区
+     * pmax正常情况下为空，拆分只涉及元数据
+     * @param name 分区名
+     * @param upperBound 分区上界（不含），即下个月的第一天
+     * @return 成功返回true
+     */
+    boolean addPartition(String name, LocalDate upperBound);
+
+    /**
+     * 删除分区及其中的全部日志
+     * @param name 分区名
+     * @return 成功返回true
+     */
+    boolean dropPartition(String name);
+
+    /**
+     * 把分区中的日志交换到独立的归档表，交换后分区为空
+     * 归档表按操作日志表的结构新建并去掉分区，交换只涉及元数据；
+     * 上次归档中途失败留下的空归档表直接复用；归档表已有数据而分区为空说明上次已交换完成，直接返回成功；
+     * 两者都有数据时不覆盖已归档的日志，返回失败
+     * @param name 分区名
+     * @param archiveTable 归档表名
+     * @return 成功返回true
+     */
+    boolean archivePartition(String name, String archiveTable);
+}
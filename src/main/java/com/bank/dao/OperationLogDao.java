@@ -1,6 +1,8 @@
 package com.bank.dao;
 
 import com.bank.entity.OperationLog;
+import com.bank.entity.Page;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -15,8 +17,18 @@ public interface OperationLogDao {
      */
     boolean insert(OperationLog log);
 
+    /**
+     * 批量插入操作日志
+     * 在一个事务中以JDBC批处理写入，整批成功或整批失败；日志的createTime不为空时写入该时间
+     * recordId已存在的日志视为已写入，直接跳过，重复补写不会产生重复记录
+     * @param logs 日志列表，按写入顺序排列
+     * @return 插入成功返回true，失败返回false
+     */
+    boolean insertBatch(List<OperationLog> logs);
+
     /**
      * 根据管理员ID查询日志
+     * 返回全部匹配记录，日志较多时使用findPageByAdminId分页查询
      * @param adminId 管理员ID
      * @return 该管理员的操作日志列表
      */
@@ -24,6 +36,7 @@ public interface OperationLogDao {
 
     /**
      * 根据操作类型查询日志
+     * 返回全部匹配记录，日志较多时使用findPageByType分页查询
      * @param operationType 操作类型
      * @return 符合条件的日志列表
      */
@@ -31,6 +44,7 @@ public interface OperationLogDao {
 
     /**
      * 根据目标账号查询日志
+     * 返回全部匹配记录，日志较多时使用findPageByAccount分页查询
      * @param account 目标用户账号
      * @return 涉及该账号的日志列表
      */
@@ -38,6 +52,7 @@ public interface OperationLogDao {
 
     /**
      * 查询所有日志
+     * 返回全部记录，日志较多时使用findPage分页查询
      * @return 所有操作日志列表
      */
     List<OperationLog> findAll();
@@ -48,4 +63,72 @@ public interface OperationLogDao {
      * @return 最近的操作日志列表
      */
     List<OperationLog> findRecent(int limit);
+
+    /**
+     * 查询ID大于指定值的日志
+     * 按ID升序排列，按主键(id, create_time)前缀在各月分区内做范围扫描，用于增量读取新写入的日志
+     * @param afterId 起始ID（不含）
+     * @param limit 返回记录数量限制
+     * @return 日志列表；查询失败返回null
+     */
+    List<OperationLog> findAfterId(long afterId, int limit);
+
+    /**
+     * 键集分页查询管理员的日志
+     * 按(create_time, id)倒序排列，从上一页最后一条记录之后开始取，使用(admin_id, create_time)索引定位，
+     * 每页代价与表大小无关；指定时间范围时只扫描范围内的月分区
+     * @param adminId 管理员ID
+     * @param from 起始时间（含），null表示不限
+     * @param to 结束时间（不含），null表示不限
+     * @param afterCreateTime 上一页最后一条记录的操作时间，查询第一页时为null
+     * @param afterId 上一页最后一条记录的ID，查询第一页时为null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<OperationLog> findPageByAdminId(Integer adminId, LocalDateTime from, LocalDateTime to,
+                                         LocalDateTime afterCreateTime, Long afterId, int pageSize);
+
+    /**
+     * 键集分页查询指定类型的日志
+     * 按(create_time, id)倒序排列，从上一页最后一条记录之后开始取，使用(operation_type, create_time)索引定位，
+     * 每页代价与表大小无关；指定时间范围时只扫描范围内的月分区
+     * @param operationType 操作类型
+     * @param from 起始时间（含），null表示不限
+     * @param to 结束时间（不含），null表示不限
+     * @param afterCreateTime 上一页最后一条记录的操作时间，查询第一页时为null
+     * @param afterId 上一页最后一条记录的ID，查询第一页时为null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<OperationLog> findPageByType(String operationType, LocalDateTime from, LocalDateTime to,
+                                      LocalDateTime afterCreateTime, Long afterId, int pageSize);
+
+    /**
+     * 键集分页查询涉及指定账号的日志
+     * 按(create_time, id)倒序排列，从上一页最后一条记录之后开始取，使用(target_account, create_time)索引定位，
+     * 每页代价与表大小无关；指定时间范围时只扫描范围内的月分区
+     * @param account 目标用户账号
+     * @param from 起始时间（含），null表示不限
+     * @param to 结束时间（不含），null表示不限
+     * @param afterCreateTime 上一页最后一条记录的操作时间，查询第一页时为null
+     * @param afterId 上一页最后一条记录的ID，查询第一页时为null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<OperationLog> findPageByAccount(String account, LocalDateTime from, LocalDateTime to,
+                                         LocalDateTime afterCreateTime, Long afterId, int pageSize);
+
+    /**
+     * 键集分页查询全部日志
+     * 按(create_time, id)倒序排列，从上一页最后一条记录之后开始取，使用create_time索引定位，
+     * 每页代价与表大小无关；指定时间范围时只扫描范围内的月分区
+     * @param from 起始时间（含），null表示不限
+     * @param to 结束时间（不含），null表示不限
+     * @param afterCreateTime 上一页最后一条记录的操作时间，查询第一页时为null
+     * @param afterId 上一页最后一条记录的ID，查询第一页时为null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<OperationLog> findPage(LocalDateTime from, LocalDateTime to,
+                                LocalDateTime afterCreateTime, Long afterId, int pageSize);
 }
@@ -0,0 +1,18 @@
+package com.bank.dao;
+
+/**
+ * 序列号数据访问接口
+ * 基于bank_sequence表按名称维护单调递增的高水位，供账号分配器按号段预留
+ */
+public interface SequenceDao {
+    /**
+     * 预留一个号段
+     * 将序列的高水位原子地推进blockSize，返回推进后的高水位，
+     * 调用方独占 [返回值 - blockSize, 返回值) 这段序号
+     * 序列不存在时自动创建，从0开始
+     * @param name 序列名称
+     * @param blockSize 号段大小，必须大于0
+     * @return 推进后的高水位，失败返回-1
+     */
+    long reserveBlock(String name, int blockSize);
+}
@@ -0,0 +1,44 @@
+package com.bank.dao;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * 条带余额数据访问接口
+ * 热点账户的入账分散到bank_balance_stripe的多个子行上，各子行有独立的行锁，
+ * 账户余额 = bank_user.balance + 所有子行余额之和；后台定期把子行余额归并回主行
+ */
+public interface StripedBalanceDao {
+    /**
+     * 查询所有启用条带的账户
+     * @return 账号 -> 子行数；查询失败返回null，与"没有条带账户"区分
+     */
+    Map<String, Integer> findStripedAccounts();
+
+    /**
+     * 为账户启用条带，创建子行（子行余额为0，已存在的子行保持不变）
+     * @param account 账号
+     * @param stripes 子行数
+     * @return 成功返回true
+     */
+    boolean enableStriping(String account, int stripes);
+
+    /**
+     * 向指定子行入账，并在同一事务中追加资金流水
+     * 对bank_user的主行只加共享锁（与状态修改互斥），排他锁只加在该子行上，不同子行上的入账可以并行提交
+     * @param account 账号（必须处于正常状态）
+     * @param stripe 子行编号
+     * @param amount 入账金额，必须大于0
+     * @return 成功返回true；账号不存在、已锁定或未启用条带返回false（确定未入账）
+     * @throws IllegalStateException 数据库不可用或执行失败（包括提交失败），是否已入账未知
+     */
+    boolean creditStripe(String account, int stripe, BigDecimal amount);
+
+    /**
+     * 把所有子行余额归并到主行
+     * 先锁定主行再锁定全部子行，清零后把合计加到bank_user.balance，版本号加1
+     * @param account 账号
+     * @return 归并的金额（没有可归并的余额时为0），账号不存在或失败返回null
+     */
+    BigDecimal consolidate(String account);
+}
@@ -0,0 +1,21 @@
+package com.bank.dao;
+
+import com.bank.entity.LedgerEntry;
+import com.bank.entity.Page;
+
+/**
+ * 资金流水数据访问接口
+ * 流水在余额变动的事务中写入（见LedgerWriter），这里只提供查询
+ */
+public interface TransactionDao {
+    /**
+     * 键集分页查询账户流水
+     * 按流水ID倒序（最新的在前），使用(account, id)索引定位，
+     * 无论翻到第几页，每页的查询代价只与页大小有关
+     * @param account 账号
+     * @param beforeId 上一页最后一条流水的ID，查询第一页时为null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<LedgerEntry> findByAccount(String account, Long beforeId, int pageSize);
+}
@@ -1,8 +1,22 @@
 package com.bank.dao;
 
+import com.bank.entity.AccountBalance;
+import com.bank.entity.BatchTransferMode;
+import com.bank.entity.BatchTransferResult;
+import com.bank.entity.Page;
+import com.bank.entity.TransactionType;
+import com.bank.entity.TransferLeg;
+import com.bank.entity.TransferResult;
+import com.bank.entity.UpdateResult;
 import com.bank.entity.User;
+import com.bank.entity.UserSummary;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * 用户数据访问接口
@@ -31,22 +45,89 @@ public interface UserDao {
      */
     boolean register(User user);
 
+    /**
+     * 批量注册用户
+     * 使用多行INSERT在一个事务内写入，任意一行失败则整批回滚
+     * @param users 待注册的用户列表
+     * @return 全部插入成功返回true，失败返回false（整批未写入）
+     */
+    boolean batchRegister(List<User> users);
+
+    /**
+     * 查询给定账号中已存在的账号
+     * @param accounts 待检查的账号集合
+     * @return 数据库中已存在的账号集合
+     */
+    Set<String> findExistingAccounts(Collection<String> accounts);
+
     /**
      * 更新用户余额
      * @param account 用户账号
      * @param amount 金额变动，正数为存款，负数为取款
-     * @return 更新成功返回true，失败返回false
+     * @return 更新成功返回true；账号不存在或已锁定返回false
+     * @throws IllegalStateException 数据库不可用或执行失败，余额是否已变动未知
      */
     boolean updateBalance(String account, BigDecimal amount);
 
+    /**
+     * 扣款操作
+     * 以"余额 >= 扣款金额"为条件原子扣减余额，余额不足时不做任何修改，
+     * 并发扣款也不会透支
+     * 扣款在一个显式事务中完成：条件UPDATE、持有行锁读回余额和版本号、追加资金流水、提交，共四次往返。
+     * 没有像序列分配那样用LAST_INSERT_ID(expr)随UPDATE带回结果：它只能携带一个无符号整数，
+     * 而这里需要DECIMAL余额（含条带子行）和版本号两个值，且流水必须与扣款在同一事务中提交
+     * @param account 用户账号
+     * @param amount 扣款金额，必须大于0
+     * @return 扣款成功返回扣款后的余额和版本号；账号不存在、已锁定或余额不足返回null（确定未扣款）
+     * @throws IllegalStateException 数据库不可用或执行失败（包括提交失败），余额是否已扣减未知
+     */
+    AccountBalance debit(String account, BigDecimal amount);
+
+    /**
+     * 入账操作
+     * 原子增加余额（金额可为负数，用于管理员调整余额），并在同一事务中读回变动后的余额、追加资金流水
+     * @param account 用户账号
+     * @param amount 金额变动
+     * @param type 流水类型
+     * @return 成功返回变动后的余额和版本号；账号不存在或已锁定返回null（确定未入账）
+     * @throws IllegalStateException 数据库不可用或执行失败（包括提交失败），余额是否已变动未知
+     */
+    AccountBalance credit(String account, BigDecimal amount, TransactionType type);
+
+    /**
+     * 合并入账操作
+     * 把同一账号的多笔入账合计为一条UPDATE，在同一事务中为每笔入账各追加一条资金流水，
+     * 流水的变动后余额按入账顺序依次累加
+     * @param account 用户账号
+     * @param amounts 各笔金额，按入账顺序排列
+     * @param type 流水类型
+     * @return 成功返回每笔入账后的余额，与amounts一一对应，版本号均为本次提交后的版本号；
+     *         账号不存在或已锁定返回null（确定未入账）
+     * @throws IllegalStateException 数据库不可用或执行失败（包括提交失败），余额是否已变动未知
+     */
+    List<AccountBalance> creditAll(String account, List<BigDecimal> amounts, TransactionType type);
+
     /**
      * 转账操作
+     * 在同一个连接、同一个事务内完成校验、扣款和入账；
+     * 两行按账号升序加锁避免死锁，遇到死锁或锁等待超时自动退避重试
      * @param fromAccount 转出账号
      * @param toAccount 转入账号
      * @param amount 转账金额
-     * @return 转账成功返回true，失败返回false
+     * @return 转账结果，失败时包含具体原因（账号不存在、已锁定、余额不足等）；
+     *         SYSTEM_ERROR表示执行失败，提交失败时转账可能已经生效
+     */
+    TransferResult transfer(String fromAccount, String toAccount, BigDecimal amount);
+
+    /**
+     * 批量转账
+     * 在一个事务内从同一转出账号向多个账号转账：一条语句扣款，入账使用JDBC批处理
+     * @param fromAccount 转出账号
+     * @param legs 转账列表
+     * @param mode 批量模式：全部成功或全部回滚 / 逐笔结果
+     * @return 批量转账结果，包含每笔转账的结果
      */
-    boolean transfer(String fromAccount, String toAccount, BigDecimal amount);
+    BatchTransferResult batchTransfer(String fromAccount, List<TransferLeg> legs, BatchTransferMode mode);
 
     /**
      * 注销用户（软删除，将状态设为0）
@@ -63,6 +144,39 @@ public interface UserDao {
      */
     boolean updateStatus(String account, Integer status);
 
+    /**
+     * 按版本号条件更新用户状态（乐观并发控制）
+     * 只有当前版本号等于expectedVersion时才更新，更新后版本号加1
+     * @param account 用户账号
+     * @param status 状态：1-正常，0-锁定
+     * @param expectedVersion 读取时的版本号
+     * @return SUCCESS-已更新；CONFLICT-版本号不一致，未做修改；NOT_FOUND-账号不存在；ERROR-执行失败
+     */
+    UpdateResult updateStatusIfVersion(String account, Integer status, long expectedVersion);
+
+    /**
+     * 按当前状态条件更新用户状态
+     * 只有当前状态等于expectedStatus时才更新；余额变动也会增加版本号，
+     * 锁定资金往来频繁的账户时不能以版本号为条件，否则几乎总是冲突
+     * @param account 用户账号
+     * @param status 新状态：1-正常，0-锁定
+     * @param expectedStatus 读取时的状态
+     * @return SUCCESS-已更新；CONFLICT-状态已被修改，未做修改；NOT_FOUND-账号不存在；ERROR-执行失败
+     */
+    UpdateResult updateStatusIfStatus(String account, Integer status, Integer expectedStatus);
+
+    /**
+     * 按版本号条件设置用户余额（乐观并发控制）
+     * 用于先读取余额、在应用中计算新余额再写回的场景，版本号不一致时不会覆盖他人的修改
+     * 新余额是账户总余额：启用条带的账户在同一事务中先锁定并清零条带子行，再把主行设为新余额，
+     * 流水的变动金额按原总余额（主行 + 条带子行）计算
+     * @param account 用户账号
+     * @param newBalance 新的账户总余额
+     * @param expectedVersion 读取时的版本号
+     * @return SUCCESS-已更新；CONFLICT-版本号不一致，未做修改；NOT_FOUND-账号不存在；ERROR-执行失败
+     */
+    UpdateResult updateBalanceIfVersion(String account, BigDecimal newBalance, long expectedVersion);
+
     /**
      * 查询所有用户
      * @return 用户列表
@@ -75,4 +189,65 @@ public interface UserDao {
      * @return 符合条件的用户列表
      */
     List<User> findByStatus(Integer status);
+
+    /**
+     * 键集分页查询用户
+     * 按(create_time, account)倒序排列，从上一页最后一条记录之后开始取，
+     * 借助(status, create_time, account)/(create_time, account)索引，每页代价与表大小无关
+     * @param status 用户状态，null表示不限状态
+     * @param afterCreateTime 上一页最后一条记录的注册时间，查询第一页时为null
+     * @param afterAccount 上一页最后一条记录的账号，查询第一页时为null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<User> findPage(Integer status, LocalDateTime afterCreateTime, String afterAccount, int pageSize);
+
+    /**
+     * 键集分页查询用户摘要
+     * 排序和翻页方式与findPage相同，但只查询列表展示需要的列，不读取密码和身份证号
+     * @param status 用户状态，null表示不限状态
+     * @param afterCreateTime 上一页最后一条记录的注册时间，查询第一页时为null
+     * @param afterAccount 上一页最后一条记录的账号，查询第一页时为null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<UserSummary> findSummaryPage(Integer status, LocalDateTime afterCreateTime, String afterAccount, int pageSize);
+
+    /**
+     * 流式遍历所有用户
+     * 使用只进的服务端游标按账号顺序逐批读取，内存占用与表大小无关；
+     * 流占用一个数据库连接，必须关闭流（推荐try-with-resources）才会归还连接
+     * @param fetchSize 每次从服务端游标读取的行数
+     * @return 用户流，数据库不可用时返回空流
+     */
+    Stream<User> streamAll(int fetchSize);
+
+    /**
+     * 流式遍历所有账号
+     * 只读取主键列，用于在内存中构建账号存在性过滤器；流必须关闭才会归还连接
+     * @param fetchSize 每次从服务端游标读取的行数
+     * @return 账号流，数据库不可用时返回空流
+     */
+    Stream<String> streamAccounts(int fetchSize);
+
+    /**
+     * 查询注册时间不早于指定时间的账号
+     * 借助(create_time, account)索引只扫描新注册的部分，用于账号存在性过滤器的增量刷新
+     * @param since 起始时间（含）
+     * @return 账号 -> 注册时间，查询失败返回null
+     */
+    Map<String, LocalDateTime> findAccountsCreatedSince(LocalDateTime since);
+
+    /**
+     * 读取数据库服务器的当前时间
+     * create_time由数据库的CURRENT_TIMESTAMP填写，按注册时间增量扫描的起点应取自数据库时钟而不是本机时钟
+     * @return 数据库当前时间，查询失败返回null
+     */
+    LocalDateTime currentTime();
+
+    /**
+     * 统计用户总数
+     * @return 用户总数，查询失败返回-1
+     */
+    long countAll();
 }
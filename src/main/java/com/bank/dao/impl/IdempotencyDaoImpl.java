@@ -0,0 +1,134 @@
+package com.bank.dao.impl;
+
+import com.bank.dao.IdempotencyDao;
+import com.bank.entity.IdempotencyRecord;
+import com.bank.util.DBUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class IdempotencyDaoImpl implements IdempotencyDao {
+
+    @Override
+    public boolean claim(String requestKey, String operation, String account) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return false;
+            }
+            // 主键冲突时不报错也不修改已有记录，影响行数为0即说明键已被占用
+            String sql = "INSERT IGNORE INTO bank_idempotency_key (request_key, operation, account, state) VALUES (?, ?, ?, 0)";
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setString(1, requestKey);
+            pstmt.setString(2, operation);
+            pstmt.setString(3, account);
+            return pstmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.close(conn, pstmt);
+        }
+    }
+
+    @Override
+    public IdempotencyRecord findByKey(String requestKey) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return null;
+            }
+            String sql = "SELECT request_key, operation, account, state, result FROM bank_idempotency_key WHERE request_key = ?";
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setString(1, requestKey);
+            rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            return new IdempotencyRecord(rs.getString(1), rs.getString(2), rs.getString(3), rs.getInt(4) == 1,
+                rs.getString(5));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+    }
+
+    @Override
+    public boolean complete(String requestKey, String result) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return false;
+            }
+            String sql = "UPDATE bank_idempotency_key SET state = 1, result = ? WHERE request_key = ?";
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setString(1, result);
+            pstmt.setString(2, requestKey);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.close(conn, pstmt);
+        }
+    }
+
+    @Override
+    public boolean release(String requestKey) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return false;
+            }
+            String sql = "DELETE FROM bank_idempotency_key WHERE request_key = ? AND state = 0";
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setString(1, requestKey);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.close(conn, pstmt);
+        }
+    }
+
+    @Override
+    public int purgeExpired(long retentionSeconds, int limit) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return -1;
+            }
+            // 借助create_time索引只扫描过期的部分
+            String sql = "DELETE FROM bank_idempotency_key WHERE create_time < NOW() - INTERVAL ? SECOND LIMIT ?";
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setLong(1, retentionSeconds);
+            pstmt.setInt(2, limit);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        } finally {
+            DBUtil.close(conn, pstmt);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.bank.dao.impl;
+
+import com.bank.entity.LedgerEntry;
+import com.bank.util.DBUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * 资金流水写入器
+ * 在调用方的连接和事务中向bank_transaction追加流水，与余额修改一起提交或回滚
+ * 同一事务的多条流水通过JDBC批处理发送，配合rewriteBatchedStatements=true合并为一条多行INSERT；
+ * 主键自增单调递增，插入总是落在聚簇索引末尾，不会产生页分裂
+ */
+final class LedgerWriter {
+    private static final String INSERT_SQL =
+        "INSERT INTO bank_transaction (account, counterparty, amount, type, balance_after) VALUES (?, ?, ?, ?, ?)";
+
+    private LedgerWriter() {
+    }
+
+    /**
+     * 追加一条流水
+     * @param conn 余额修改所在的连接，必须处于同一事务中
+     * @param entry 流水
+     * @throws SQLException 写入失败，调用方应回滚整个事务
+     */
+    static void append(Connection conn, LedgerEntry entry) throws SQLException {
+        append(conn, List.of(entry));
+    }
+
+    /**
+     * 批量追加流水
+     * @param conn 余额修改所在的连接，必须处于同一事务中
+     * @param entries 流水列表
+     * @throws SQLException 写入失败，调用方应回滚整个事务
+     */
+    static void append(Connection conn, List<LedgerEntry> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        PreparedStatement pstmt = null;
+        try {
+            pstmt = conn.prepareStatement(INSERT_SQL);
+            for (LedgerEntry entry : entries) {
+                pstmt.setString(1, entry.getAccount());
+                if (entry.getCounterparty() != null) {
+                    pstmt.setString(2, entry.getCounterparty());
+                } else {
+                    pstmt.setNull(2, Types.VARCHAR);
+                }
+                pstmt.setBigDecimal(3, entry.getAmount());
+                pstmt.setInt(4, entry.getType().getCode());
+                pstmt.setBigDecimal(5, entry.getBalanceAfter());
+                if (entries.size() == 1) {
+                    pstmt.executeUpdate();
+                    return;
+                }
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        } finally {
+            DBUtil.close(null, pstmt);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.bank.dao.impl;
+
+import com.bank.dao.LogPartitionDao;
+import com.bank.util.DBUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class LogPartitionDaoImpl implements LogPartitionDao {
+    /** 分区名和归档表名只允许字母、数字和下划线，拼入DDL前校验 */
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_]+");
+
+    @Override
+    public List<String> findPartitionNames() {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        List<String> names = new ArrayList<>();
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return names;
+            }
+            String sql = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'bank_operation_log' AND PARTITION_NAME IS NOT NULL "
+                + "ORDER BY PARTITION_ORDINAL_POSITION";
+            pstmt = conn.prepareStatement(sql);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+
+        return names;
+    }
+
+    @Override
+    public boolean addPartition(String name, LocalDate upperBound) {
+        return executeDdl("ALTER TABLE bank_operation_log REORGANIZE PARTITION pmax INTO ("
+            + "PARTITION " + identifier(name) + " VALUES LESS THAN ('" + upperBound + "'), "
+            + "PARTITION pmax VALUES LESS THAN (MAXVALUE))");
+    }
+
+    @Override
+    public boolean dropPartition(String name) {
+        return executeDdl("ALTER TABLE bank_operation_log DROP PARTITION " + identifier(name));
+    }
+
+    @Override
+    public boolean archivePartition(String name, String archiveTable) {
+        String partition = identifier(name);
+        String table = identifier(archiveTable);
+        // 建表、去分区、交换是三条DDL，中途失败会留下归档表；IF NOT EXISTS让下次维护复用它，而不是每天都在建表时失败
+        if (!executeDdl("CREATE TABLE IF NOT EXISTS " + table + " LIKE bank_operation_log")) {
+            return false;
+        }
+        Boolean partitioned = hasRows("SELECT 1 FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() "
+            + "AND TABLE_NAME = '" + table + "' AND PARTITION_NAME IS NOT NULL LIMIT 1");
+        if (partitioned == null || (partitioned && !executeDdl("ALTER TABLE " + table + " REMOVE PARTITIONING"))) {
+            return false;
+        }
+        Boolean archived = hasRows("SELECT 1 FROM " + table + " LIMIT 1");
+        if (archived == null) {
+            return false;
+        }
+        if (archived) {
+            // 交换会把归档表中的数据换回分区，只有分区已空（上次交换成功、删除分区失败）时才视为已归档
+            Boolean pending = hasRows("SELECT 1 FROM bank_operation_log PARTITION (" + partition + ") LIMIT 1");
+            if (pending == null || pending) {
+                System.out.println("归档表" + table + "已有数据，分区" + partition + "也不为空，跳过归档");
+                return false;
+            }
+            return true;
+        }
+        return executeDdl("ALTER TABLE bank_operation_log EXCHANGE PARTITION " + partition
+            + " WITH TABLE " + table + " WITHOUT VALIDATION");
+    }
+
+    /**
+     * 执行查询并判断是否有结果
+     * 语句中拼有表名或分区名，与DDL一样不走预编译语句缓存
+     * @return 有结果返回true，没有返回false，执行失败返回null
+     */
+    private Boolean hasRows(String sql) {
+        Connection conn = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return null;
+            }
+            stmt = conn.createStatement();
+            rs = stmt.executeQuery(sql);
+            return rs.next();
+        } catch (SQLException e) {
+            System.out.println("执行分区维护查询失败：" + sql + "，" + e.getMessage());
+            return null;
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+                if (stmt != null) {
+                    stmt.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            DBUtil.close(conn, null);
+        }
+    }
+
+    /**
+     * 执行DDL语句
+     * DDL不走预编译语句缓存，每条分区名都不同，缓存只会挤掉常用语句
+     */
+    private boolean executeDdl(String sql) {
+        Connection conn = null;
+        Statement stmt = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return false;
+            }
+            stmt = conn.createStatement();
+            stmt.execute(sql);
+            return true;
+        } catch (SQLException e) {
+            System.out.println("执行分区维护语句失败：" + sql + "，" + e.getMessage());
+            return false;
+        } finally {
+            try {
+                if (stmt != null) {
+                    stmt.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            DBUtil.close(conn, null);
+        }
+    }
+
+    private static String identifier(String name) {
+        if (name == null || !IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("非法的标识符：" + name);
+        }
+        return name;
+    }
+}
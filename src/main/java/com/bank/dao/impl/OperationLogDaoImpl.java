@@ -2,15 +2,32 @@ package com.bank.dao.impl;
 
 import com.bank.dao.OperationLogDao;
 import com.bank.entity.OperationLog;
+import com.bank.entity.Page;
 import com.bank.util.DBUtil;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 
 public class OperationLogDaoImpl implements OperationLogDao {
+    /**
+     * 批量插入使用的单行INSERT
+     * SQL文本与批次大小无关，只占用语句缓存中的一个条目；通过JDBC批处理发送，
+     * rewriteBatchedStatements=true时由驱动合并为多行INSERT。
+     * 补写时同一条日志可能已写入过（写入成功但本地文件尚未确认），按record_id去重
+     */
+    private static final String INSERT_BATCH_SQL = "INSERT INTO bank_operation_log (record_id, admin_id, admin_name, "
+        + "operation_type, operation_desc, target_account, ip_address, status, error_message, create_time) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, COALESCE(?, NOW())) ON DUPLICATE KEY UPDATE id = id";
+    /** 查询最近日志时最多向前回溯的月数，超过保留期的月分区已被删除 */
+    private static final int RECENT_LOOKBACK_MONTHS = Math.max(1,
+        DBUtil.getIntProperty("log.partition.retentionMonths", 12));
 
     @Override
     public boolean insert(OperationLog log) {
@@ -22,16 +39,17 @@ public class OperationLogDaoImpl implements OperationLogDao {
             if (conn == null) {
                 return false;
             }
-            String sql = "INSERT INTO bank_operation_log (admin_id, admin_name, operation_type, operation_desc, target_account, ip_address, status, error_message) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+            String sql = "INSERT INTO bank_operation_log (record_id, admin_id, admin_name, operation_type, operation_desc, target_account, ip_address, status, error_message) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
             pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, log.getAdminId());
-            pstmt.setString(2, log.getAdminName());
-            pstmt.setString(3, log.getOperationType());
-            pstmt.setString(4, log.getOperationDesc());
-            pstmt.setString(5, log.getTargetAccount());
-            pstmt.setString(6, log.getIpAddress());
-            pstmt.setInt(7, log.getStatus());
-            pstmt.setString(8, log.getErrorMessage());
+            pstmt.setString(1, log.getRecordId());
+            pstmt.setInt(2, log.getAdminId());
+            pstmt.setString(3, log.getAdminName());
+            pstmt.setString(4, log.getOperationType());
+            pstmt.setString(5, log.getOperationDesc());
+            pstmt.setString(6, log.getTargetAccount());
+            pstmt.setString(7, log.getIpAddress());
+            pstmt.setInt(8, log.getStatus());
+            pstmt.setString(9, log.getErrorMessage());
 
             int rows = pstmt.executeUpdate();
             return rows > 0;
@@ -43,6 +61,61 @@ public class OperationLogDaoImpl implements OperationLogDao {
         }
     }
 
+    @Override
+    public boolean insertBatch(List<OperationLog> logs) {
+        if (logs.isEmpty()) {
+            return true;
+        }
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return false;
+            }
+            conn.setAutoCommit(false);
+
+            pstmt = conn.prepareStatement(INSERT_BATCH_SQL);
+            for (OperationLog log : logs) {
+                pstmt.setString(1, log.getRecordId());
+                pstmt.setObject(2, log.getAdminId(), Types.INTEGER);
+                pstmt.setString(3, log.getAdminName());
+                pstmt.setString(4, log.getOperationType());
+                pstmt.setString(5, log.getOperationDesc());
+                pstmt.setString(6, log.getTargetAccount());
+                pstmt.setString(7, log.getIpAddress());
+                pstmt.setObject(8, log.getStatus(), Types.TINYINT);
+                pstmt.setString(9, log.getErrorMessage());
+                pstmt.setTimestamp(10, log.getCreateTime() != null ? Timestamp.valueOf(log.getCreateTime()) : null);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            System.out.println("批量写入操作日志失败，整批回滚：" + e.getMessage());
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            return false;
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            DBUtil.close(conn, pstmt);
+        }
+    }
+
     @Override
     public List<OperationLog> findByAdminId(Integer adminId) {
         Connection conn = null;
@@ -170,14 +243,35 @@ public class OperationLogDaoImpl implements OperationLogDao {
             if (conn == null) {
                 return logs;
             }
-            String sql = "SELECT * FROM bank_operation_log ORDER BY create_time DESC LIMIT ?";
+            // 先查当月，不够再逐月向前补，每条语句都带create_time范围，只扫描对应的月分区
+            String sql = "SELECT * FROM bank_operation_log WHERE create_time >= ? ORDER BY create_time DESC LIMIT ?";
             pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, limit);
+            LocalDateTime lower = YearMonth.now().atDay(1).atStartOfDay();
+            pstmt.setTimestamp(1, Timestamp.valueOf(lower));
+            pstmt.setInt(2, limit);
             rs = pstmt.executeQuery();
-
             while (rs.next()) {
                 logs.add(parseLog(rs));
             }
+            DBUtil.close(null, pstmt, rs);
+            rs = null;
+
+            sql = "SELECT * FROM bank_operation_log WHERE create_time >= ? AND create_time < ? "
+                + "ORDER BY create_time DESC LIMIT ?";
+            pstmt = conn.prepareStatement(sql);
+            for (int i = 0; i <= RECENT_LOOKBACK_MONTHS && logs.size() < limit; i++) {
+                LocalDateTime upper = lower;
+                lower = upper.minusMonths(1);
+                pstmt.setTimestamp(1, Timestamp.valueOf(lower));
+                pstmt.setTimestamp(2, Timestamp.valueOf(upper));
+                pstmt.setInt(3, limit - logs.size());
+                rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    logs.add(parseLog(rs));
+                }
+                rs.close();
+                rs = null;
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         } finally {
@@ -187,9 +281,143 @@ public class OperationLogDaoImpl implements OperationLogDao {
         return logs;
     }
 
+    @Override
+    public List<OperationLog> findAfterId(long afterId, int limit) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return null;
+            }
+            String sql = "SELECT * FROM bank_operation_log WHERE id > ? ORDER BY id LIMIT ?";
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setLong(1, afterId);
+            pstmt.setInt(2, limit);
+            rs = pstmt.executeQuery();
+            List<OperationLog> logs = new ArrayList<>();
+            while (rs.next()) {
+                logs.add(parseLog(rs));
+            }
+            return logs;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+    }
+
+    @Override
+    public Page<OperationLog> findPageByAdminId(Integer adminId, LocalDateTime from, LocalDateTime to,
+                                                LocalDateTime afterCreateTime, Long afterId, int pageSize) {
+        return queryPage("admin_id", adminId, from, to, afterCreateTime, afterId, pageSize);
+    }
+
+    @Override
+    public Page<OperationLog> findPageByType(String operationType, LocalDateTime from, LocalDateTime to,
+                                             LocalDateTime afterCreateTime, Long afterId, int pageSize) {
+        return queryPage("operation_type", operationType, from, to, afterCreateTime, afterId, pageSize);
+    }
+
+    @Override
+    public Page<OperationLog> findPageByAccount(String account, LocalDateTime from, LocalDateTime to,
+                                                LocalDateTime afterCreateTime, Long afterId, int pageSize) {
+        return queryPage("target_account", account, from, to, afterCreateTime, afterId, pageSize);
+    }
+
+    @Override
+    public Page<OperationLog> findPage(LocalDateTime from, LocalDateTime to,
+                                       LocalDateTime afterCreateTime, Long afterId, int pageSize) {
+        return queryPage(null, null, from, to, afterCreateTime, afterId, pageSize);
+    }
+
+    /**
+     * 按(create_time, id)倒序执行键集分页查询
+     * 等值条件列与create_time组成复合索引，索引按(列, create_time, id)有序，
+     * 时间范围和翻页条件都落在同一个索引区间内，不需要排序
+     * @param column 等值条件列，null表示不加条件；只由本类传入固定列名
+     * @param value 等值条件的值
+     * @param from 起始时间（含），null表示不限
+     * @param to 结束时间（不含），null表示不限
+     * @param afterCreateTime 上一页最后一条记录的操作时间，查询第一页时为null
+     * @param afterId 上一页最后一条记录的ID，查询第一页时为null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    private Page<OperationLog> queryPage(String column, Object value, LocalDateTime from, LocalDateTime to,
+                                         LocalDateTime afterCreateTime, Long afterId, int pageSize) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        List<OperationLog> rows = new ArrayList<>();
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return Page.of(rows, pageSize);
+            }
+            boolean seek = afterCreateTime != null && afterId != null;
+            List<String> conditions = new ArrayList<>(4);
+            if (column != null) {
+                conditions.add(column + " = ?");
+            }
+            if (from != null) {
+                conditions.add("create_time >= ?");
+            }
+            if (to != null) {
+                conditions.add("create_time < ?");
+            }
+            if (seek) {
+                // 与用户分页相同，翻页条件展开成create_time <= ? AND (create_time < ? OR id < ?)：
+                // 与(create_time, id) < (?, ?)等价，但create_time <= ?能直接作为分区裁剪和索引范围扫描的上界，
+                // 不依赖优化器识别行构造器比较
+                conditions.add("create_time <= ? AND (create_time < ? OR id < ?)");
+            }
+            StringBuilder sql = new StringBuilder("SELECT * FROM bank_operation_log");
+            if (!conditions.isEmpty()) {
+                sql.append(" WHERE ").append(String.join(" AND ", conditions));
+            }
+            sql.append(" ORDER BY create_time DESC, id DESC LIMIT ?");
+
+            pstmt = conn.prepareStatement(sql.toString());
+            int index = 1;
+            if (column != null) {
+                pstmt.setObject(index++, value);
+            }
+            if (from != null) {
+                pstmt.setTimestamp(index++, Timestamp.valueOf(from));
+            }
+            if (to != null) {
+                pstmt.setTimestamp(index++, Timestamp.valueOf(to));
+            }
+            if (seek) {
+                Timestamp after = Timestamp.valueOf(afterCreateTime);
+                pstmt.setTimestamp(index++, after);
+                pstmt.setTimestamp(index++, after);
+                pstmt.setLong(index++, afterId);
+            }
+            pstmt.setInt(index, pageSize + 1);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                rows.add(parseLog(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+
+        return Page.of(rows, pageSize);
+    }
+
     private OperationLog parseLog(ResultSet rs) throws SQLException {
         OperationLog log = new OperationLog();
         log.setId(rs.getLong("id"));
+        log.setRecordId(rs.getString("record_id"));
         log.setAdminId(rs.getInt("admin_id"));
         log.setAdminName(rs.getString("admin_name"));
         log.setOperationType(rs.getString("operation_type"));
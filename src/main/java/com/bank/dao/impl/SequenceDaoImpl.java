@@ -0,0 +1,56 @@
+package com.bank.dao.impl;
+
+import com.bank.dao.SequenceDao;
+import com.bank.util.DBUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class SequenceDaoImpl implements SequenceDao {
+
+    @Override
+    public long reserveBlock(String name, int blockSize) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return -1;
+            }
+            // 自动提交下的单行UPDATE，行锁只持有一条语句的时间；
+            // LAST_INSERT_ID(expr)把推进后的值记在当前会话上，随后读取无需再访问表
+            String sql = "UPDATE bank_sequence SET next_value = LAST_INSERT_ID(next_value + ?) WHERE name = ?";
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, blockSize);
+            pstmt.setString(2, name);
+            if (pstmt.executeUpdate() == 0) {
+                // 序列尚未初始化，并发初始化时只有一个INSERT生效
+                pstmt.close();
+                pstmt = conn.prepareStatement("INSERT IGNORE INTO bank_sequence (name, next_value) VALUES (?, 0)");
+                pstmt.setString(1, name);
+                pstmt.executeUpdate();
+                pstmt.close();
+
+                pstmt = conn.prepareStatement(sql);
+                pstmt.setInt(1, blockSize);
+                pstmt.setString(2, name);
+                if (pstmt.executeUpdate() == 0) {
+                    return -1;
+                }
+            }
+            pstmt.close();
+
+            pstmt = conn.prepareStatement("SELECT LAST_INSERT_ID()");
+            rs = pstmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : -1;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+    }
+}
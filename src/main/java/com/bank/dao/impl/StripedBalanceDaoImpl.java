@@ -0,0 +1,223 @@
+package com.bank.dao.impl;
+
+import com.bank.dao.StripedBalanceDao;
+import com.bank.entity.LedgerEntry;
+import com.bank.entity.TransactionType;
+import com.bank.util.DBUtil;
+import com.bank.util.TransactionRetry;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class StripedBalanceDaoImpl implements StripedBalanceDao {
+
+    @Override
+    public Map<String, Integer> findStripedAccounts() {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        Map<String, Integer> accounts = new HashMap<>();
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return null;
+            }
+            pstmt = conn.prepareStatement("SELECT account, COUNT(*) FROM bank_balance_stripe GROUP BY account");
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                accounts.put(rs.getString(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+
+        return accounts;
+    }
+
+    @Override
+    public boolean enableStriping(String account, int stripes) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return false;
+            }
+            pstmt = conn.prepareStatement("INSERT IGNORE INTO bank_balance_stripe (account, stripe, balance) VALUES (?, ?, 0)");
+            for (int i = 0; i < stripes; i++) {
+                pstmt.setString(1, account);
+                pstmt.setInt(2, i);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.close(conn, pstmt);
+        }
+    }
+
+    @Override
+    public boolean creditStripe(String account, int stripe, BigDecimal amount) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                throw new IllegalStateException("数据库连接失败，入账未执行");
+            }
+            conn.setAutoCommit(false);
+
+            // 对主行加共享锁检查状态：锁定、注销等状态修改需要主行的排他锁，会等本次入账提交，
+            // 不会出现入账落在正在被锁定的账户上；多笔条带入账的共享锁互相兼容，仍然可以并行。
+            // 加锁顺序为先主行后子行，与归并一致
+            pstmt = conn.prepareStatement("SELECT status FROM bank_user WHERE account = ? LOCK IN SHARE MODE");
+            pstmt.setString(1, account);
+            rs = pstmt.executeQuery();
+            boolean active = rs.next() && rs.getInt(1) == 1;
+            DBUtil.close(null, pstmt, rs);
+            rs = null;
+            pstmt = null;
+            if (!active) {
+                conn.rollback();
+                return false;
+            }
+
+            pstmt = conn.prepareStatement("UPDATE bank_balance_stripe SET balance = balance + ? WHERE account = ? AND stripe = ?");
+            pstmt.setBigDecimal(1, amount);
+            pstmt.setString(2, account);
+            pstmt.setInt(3, stripe);
+            if (pstmt.executeUpdate() == 0) {
+                conn.rollback();
+                return false;
+            }
+            // 条带入账不读取总余额，流水的变动后余额留空
+            LedgerWriter.append(conn, new LedgerEntry(account, null, amount, TransactionType.DEPOSIT, null));
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            // 提交语句本身失败时入账可能已经生效，不能按"未入账"返回false
+            throw new IllegalStateException("条带入账执行失败，结果未知：" + e.getMessage(), e);
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            DBUtil.close(conn, pstmt, rs);
+        }
+    }
+
+    @Override
+    public BigDecimal consolidate(String account) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return consolidateOnce(account);
+            } catch (SQLException e) {
+                if (TransactionRetry.shouldRetry(e, attempt)) {
+                    continue;
+                }
+                e.printStackTrace();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 执行一次归并事务
+     * 先锁主行再锁子行，与条带入账（主行共享锁、单个子行排他锁）的加锁顺序一致，扣款只锁主行，
+     * 不会形成锁等待环；归并不改变账户总余额，因此不写资金流水
+     */
+    private BigDecimal consolidateOnce(String account) throws SQLException {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return null;
+            }
+            conn.setAutoCommit(false);
+
+            pstmt = conn.prepareStatement("SELECT 1 FROM bank_user WHERE account = ? FOR UPDATE");
+            pstmt.setString(1, account);
+            rs = pstmt.executeQuery();
+            boolean exists = rs.next();
+            DBUtil.close(null, pstmt, rs);
+            rs = null;
+            pstmt = null;
+            if (!exists) {
+                conn.rollback();
+                return null;
+            }
+
+            pstmt = conn.prepareStatement("SELECT COALESCE(SUM(balance), 0) FROM bank_balance_stripe WHERE account = ? FOR UPDATE");
+            pstmt.setString(1, account);
+            rs = pstmt.executeQuery();
+            BigDecimal total = rs.next() ? rs.getBigDecimal(1) : BigDecimal.ZERO;
+            DBUtil.close(null, pstmt, rs);
+            rs = null;
+            pstmt = null;
+            if (total.signum() == 0) {
+                conn.rollback();
+                return BigDecimal.ZERO;
+            }
+
+            pstmt = conn.prepareStatement("UPDATE bank_balance_stripe SET balance = 0 WHERE account = ?");
+            pstmt.setString(1, account);
+            pstmt.executeUpdate();
+            DBUtil.close(null, pstmt);
+            pstmt = null;
+
+            pstmt = conn.prepareStatement("UPDATE bank_user SET balance = balance + ?, version = version + 1 WHERE account = ?");
+            pstmt.setBigDecimal(1, total);
+            pstmt.setString(2, account);
+            pstmt.executeUpdate();
+
+            conn.commit();
+            return total;
+        } catch (SQLException e) {
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            throw e;
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            DBUtil.close(conn, pstmt, rs);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.bank.dao.impl;
+
+import com.bank.dao.TransactionDao;
+import com.bank.entity.LedgerEntry;
+import com.bank.entity.Page;
+import com.bank.entity.TransactionType;
+import com.bank.util.DBUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionDaoImpl implements TransactionDao {
+
+    @Override
+    public Page<LedgerEntry> findByAccount(String account, Long beforeId, int pageSize) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        List<LedgerEntry> rows = new ArrayList<>();
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return Page.of(rows, pageSize);
+            }
+            String sql = beforeId == null
+                ? "SELECT id, account, counterparty, amount, type, balance_after, create_time FROM bank_transaction "
+                    + "WHERE account = ? ORDER BY id DESC LIMIT ?"
+                : "SELECT id, account, counterparty, amount, type, balance_after, create_time FROM bank_transaction "
+                    + "WHERE account = ? AND id < ? ORDER BY id DESC LIMIT ?";
+            pstmt = conn.prepareStatement(sql);
+            int index = 1;
+            pstmt.setString(index++, account);
+            if (beforeId != null) {
+                pstmt.setLong(index++, beforeId);
+            }
+            pstmt.setInt(index, pageSize + 1);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                rows.add(parseEntry(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+
+        return Page.of(rows, pageSize);
+    }
+
+    /**
+     * 解析流水记录
+     * 按列序号读取，列顺序与查询的SELECT列表一致
+     */
+    private LedgerEntry parseEntry(ResultSet rs) throws SQLException {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setId(rs.getLong(1));
+        entry.setAccount(rs.getString(2));
+        entry.setCounterparty(rs.getString(3));
+        entry.setAmount(rs.getBigDecimal(4));
+        entry.setType(TransactionType.fromCode(rs.getInt(5)));
+        entry.setBalanceAfter(rs.getBigDecimal(6));
+        Timestamp createTime = rs.getTimestamp(7);
+        if (createTime != null) {
+            entry.setCreateTime(createTime.toLocalDateTime());
+        }
+        return entry;
+    }
+}
@@ -1,17 +1,61 @@
 package com.bank.dao.impl;
 
 import com.bank.dao.UserDao;
+import com.bank.entity.AccountBalance;
+import com.bank.entity.BatchTransferMode;
+import com.bank.entity.BatchTransferResult;
+import com.bank.entity.LedgerEntry;
+import com.bank.entity.Page;
+import com.bank.entity.TransactionType;
+import com.bank.entity.TransferLeg;
+import com.bank.entity.TransferResult;
+import com.bank.entity.UpdateResult;
 import com.bank.entity.User;
+import com.bank.entity.UserSummary;
 import com.bank.util.DBUtil;
+import com.bank.util.TransactionRetry;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class UserDaoImpl implements UserDao {
+    /** 按账号列表批量查询（含批量加锁）时，每条语句IN列表包含的最大账号数 */
+    private static final int IN_CHUNK_SIZE = 256;
+    /** 账号数较少时使用的小分片，避免为少量账号绑定大量占位符 */
+    private static final int SMALL_IN_CHUNK_SIZE = 16;
+    /**
+     * 条带子行余额合计，外层查询的bank_user别名必须为u；未启用条带的账户子查询为空，合计为0
+     * 条带账户的余额是主行与子行之和，所有读回或展示余额的查询都要加上它
+     */
+    private static final String STRIPED_BALANCE =
+        "(SELECT COALESCE(SUM(s.balance), 0) FROM bank_balance_stripe s WHERE s.account = u.account)";
+    /** 用户查询的列，附带条带子行余额合计 */
+    private static final String USER_COLUMNS_WITH_STRIPES = "u.*, " + STRIPED_BALANCE + " AS striped_balance";
+    /** 用户查询，附带条带子行余额合计 */
+    private static final String USER_WITH_STRIPES = "SELECT " + USER_COLUMNS_WITH_STRIPES + " FROM bank_user u";
+    /** 用户摘要查询的列，顺序与parseSummary的列序号对应，余额含条带子行 */
+    private static final String SUMMARY_COLUMNS = "u.account, u.name, u.phone, u.balance + " + STRIPED_BALANCE
+        + ", u.status, u.create_time, u.version";
+    /** 批量注册时每条多行INSERT包含的最大行数 */
+    private static final int INSERT_ROWS_PER_STATEMENT = 500;
 
     @Override
     public User login(String account, String password) {
@@ -25,14 +69,14 @@ public class UserDaoImpl implements UserDao {
             if (conn == null) {
                 return null;
             }
-            String sql = "SELECT * FROM bank_user WHERE account = ? AND password = ?";
+            String sql = USER_WITH_STRIPES + " WHERE u.account = ? AND u.password = ?";
             pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, account);
             pstmt.setString(2, password);
             rs = pstmt.executeQuery();
 
             if (rs.next()) {
-                user = parseUser(rs);
+                user = parseUserWithStripes(rs);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -55,13 +99,13 @@ public class UserDaoImpl implements UserDao {
             if (conn == null) {
                 return null;
             }
-            String sql = "SELECT * FROM bank_user WHERE account = ?";
+            String sql = USER_WITH_STRIPES + " WHERE u.account = ?";
             pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, account);
             rs = pstmt.executeQuery();
 
             if (rs.next()) {
-                user = parseUser(rs);
+                user = parseUserWithStripes(rs);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -76,12 +120,17 @@ public class UserDaoImpl implements UserDao {
     public boolean register(User user) {
         Connection conn = null;
         PreparedStatement pstmt = null;
+        boolean opening = user.getBalance() != null && user.getBalance().signum() > 0;
 
         try {
             conn = DBUtil.getConnection();
             if (conn == null) {
                 return false;
             }
+            // 带初始余额时开户流水与用户记录在同一事务中写入
+            if (opening) {
+                conn.setAutoCommit(false);
+            }
             String sql = "INSERT INTO bank_user (account, name, password, phone, id_card, balance, status) VALUES (?, ?, ?, ?, ?, ?, 1)";
             pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, user.getAccount());
@@ -92,17 +141,36 @@ public class UserDaoImpl implements UserDao {
             pstmt.setBigDecimal(6, user.getBalance());
 
             int rows = pstmt.executeUpdate();
+            if (opening && rows > 0) {
+                LedgerWriter.append(conn, openingEntry(user));
+                conn.commit();
+            }
             return rows > 0;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            System.out.println("注册失败，账号已存在：" + user.getAccount());
+            rollbackQuietly(conn);
+            return false;
         } catch (SQLException e) {
             e.printStackTrace();
+            rollbackQuietly(conn);
             return false;
         } finally {
+            try {
+                if (conn != null && opening) {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
             DBUtil.close(conn, pstmt);
         }
     }
 
     @Override
-    public boolean updateBalance(String account, BigDecimal amount) {
+    public boolean batchRegister(List<User> users) {
+        if (users.isEmpty()) {
+            return true;
+        }
         Connection conn = null;
         PreparedStatement pstmt = null;
 
@@ -111,53 +179,238 @@ public class UserDaoImpl implements UserDao {
             if (conn == null) {
                 return false;
             }
-            String sql = "UPDATE bank_user SET balance = balance + ? WHERE account = ? AND status = 1";
-            pstmt = conn.prepareStatement(sql);
-            pstmt.setBigDecimal(1, amount);
-            pstmt.setString(2, account);
+            conn.setAutoCommit(false);
 
-            int rows = pstmt.executeUpdate();
-            return rows > 0;
+            for (int offset = 0; offset < users.size(); offset += INSERT_ROWS_PER_STATEMENT) {
+                List<User> rows = users.subList(offset, Math.min(offset + INSERT_ROWS_PER_STATEMENT, users.size()));
+                StringBuilder sql = new StringBuilder(
+                    "INSERT INTO bank_user (account, name, password, phone, id_card, balance, status) VALUES ");
+                for (int i = 0; i < rows.size(); i++) {
+                    sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, 1)" : ", (?, ?, ?, ?, ?, ?, 1)");
+                }
+
+                pstmt = conn.prepareStatement(sql.toString());
+                int index = 1;
+                for (User user : rows) {
+                    pstmt.setString(index++, user.getAccount());
+                    pstmt.setString(index++, user.getName());
+                    pstmt.setString(index++, user.getPassword());
+                    pstmt.setString(index++, user.getPhone());
+                    pstmt.setString(index++, user.getIdCard());
+                    pstmt.setBigDecimal(index++, user.getBalance());
+                }
+                pstmt.executeUpdate();
+                DBUtil.close(null, pstmt);
+                pstmt = null;
+            }
+
+            List<LedgerEntry> openings = new ArrayList<>();
+            for (User user : users) {
+                if (user.getBalance() != null && user.getBalance().signum() > 0) {
+                    openings.add(openingEntry(user));
+                }
+            }
+            LedgerWriter.append(conn, openings);
+
+            conn.commit();
+            return true;
         } catch (SQLException e) {
-            e.printStackTrace();
+            System.out.println("批量注册失败，整批回滚：" + e.getMessage());
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
             return false;
         } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
             DBUtil.close(conn, pstmt);
         }
     }
 
     @Override
-    public boolean transfer(String fromAccount, String toAccount, BigDecimal amount) {
+    public Set<String> findExistingAccounts(Collection<String> accounts) {
+        Set<String> existing = new HashSet<>();
+        if (accounts.isEmpty()) {
+            return existing;
+        }
+        Connection conn = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return existing;
+            }
+            List<String> list = new ArrayList<>(accounts);
+            for (int offset = 0; offset < list.size(); offset += IN_CHUNK_SIZE) {
+                List<String> chunk = list.subList(offset, Math.min(offset + IN_CHUNK_SIZE, list.size()));
+                int size = chunk.size() <= SMALL_IN_CHUNK_SIZE ? SMALL_IN_CHUNK_SIZE : IN_CHUNK_SIZE;
+
+                StringBuilder sql = new StringBuilder("SELECT account FROM bank_user WHERE account IN (");
+                for (int i = 0; i < size; i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                sql.append(")");
+
+                PreparedStatement pstmt = null;
+                ResultSet rs = null;
+                try {
+                    pstmt = conn.prepareStatement(sql.toString());
+                    for (int i = 0; i < size; i++) {
+                        pstmt.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                    }
+                    rs = pstmt.executeQuery();
+                    while (rs.next()) {
+                        existing.add(rs.getString(1));
+                    }
+                } finally {
+                    DBUtil.close(null, pstmt, rs);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            DBUtil.close(conn, null);
+        }
+
+        return existing;
+    }
+
+    @Override
+    public boolean updateBalance(String account, BigDecimal amount) {
+        TransactionType type = amount.signum() >= 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAW;
+        return credit(account, amount, type) != null;
+    }
+
+    @Override
+    public AccountBalance debit(String account, BigDecimal amount) {
         Connection conn = null;
         PreparedStatement pstmt1 = null;
         PreparedStatement pstmt2 = null;
+        ResultSet rs = null;
 
         try {
             conn = DBUtil.getConnection();
             if (conn == null) {
-                return false;
+                throw new IllegalStateException("数据库连接失败，扣款未执行");
             }
             conn.setAutoCommit(false);
 
-            String sql1 = "UPDATE bank_user SET balance = balance - ? WHERE account = ? AND status = 1";
+            String sql1 = "UPDATE bank_user SET balance = balance - ?, version = version + 1 WHERE account = ? AND status = 1 AND balance >= ?";
             pstmt1 = conn.prepareStatement(sql1);
             pstmt1.setBigDecimal(1, amount);
-            pstmt1.setString(2, fromAccount);
-            int rows1 = pstmt1.executeUpdate();
+            pstmt1.setString(2, account);
+            pstmt1.setBigDecimal(3, amount);
+            if (pstmt1.executeUpdate() == 0) {
+                conn.rollback();
+                return null;
+            }
 
-            String sql2 = "UPDATE bank_user SET balance = balance + ? WHERE account = ? AND status = 1";
+            // 行锁仍由本事务持有，读到的就是本次扣款后的余额和版本号；余额加上条带子行，即账户总余额。
+            // 总余额是DECIMAL且要与版本号一起返回，无法像SequenceDaoImpl那样经LAST_INSERT_ID(expr)随UPDATE带回
+            String sql2 = "SELECT u.balance + " + STRIPED_BALANCE + ", u.version FROM bank_user u WHERE u.account = ?";
             pstmt2 = conn.prepareStatement(sql2);
-            pstmt2.setBigDecimal(1, amount);
-            pstmt2.setString(2, toAccount);
-            int rows2 = pstmt2.executeUpdate();
+            pstmt2.setString(1, account);
+            rs = pstmt2.executeQuery();
+            if (!rs.next()) {
+                conn.rollback();
+                return null;
+            }
+            AccountBalance balance = new AccountBalance(rs.getBigDecimal(1), rs.getLong(2));
+            LedgerWriter.append(conn, new LedgerEntry(account, null, amount.negate(), TransactionType.WITHDRAW,
+                balance.getBalance()));
+            conn.commit();
+            return balance;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            // 提交语句本身失败时扣款可能已经生效，不能按"未扣款"返回null
+            throw new IllegalStateException("扣款执行失败，结果未知：" + e.getMessage(), e);
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            DBUtil.close(null, pstmt1);
+            DBUtil.close(conn, pstmt2, rs);
+        }
+    }
 
-            if (rows1 > 0 && rows2 > 0) {
-                conn.commit();
-                return true;
-            } else {
+    @Override
+    public AccountBalance credit(String account, BigDecimal amount, TransactionType type) {
+        List<AccountBalance> balances = creditAll(account, List.of(amount), type);
+        return balances == null ? null : balances.get(0);
+    }
+
+    @Override
+    public List<AccountBalance> creditAll(String account, List<BigDecimal> amounts, TransactionType type) {
+        if (amounts.isEmpty()) {
+            return null;
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            total = total.add(amount);
+        }
+        Connection conn = null;
+        PreparedStatement pstmt1 = null;
+        PreparedStatement pstmt2 = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                throw new IllegalStateException("数据库连接失败，入账未执行");
+            }
+            conn.setAutoCommit(false);
+
+            String sql1 = "UPDATE bank_user SET balance = balance + ?, version = version + 1 WHERE account = ? AND status = 1";
+            pstmt1 = conn.prepareStatement(sql1);
+            pstmt1.setBigDecimal(1, total);
+            pstmt1.setString(2, account);
+            if (pstmt1.executeUpdate() == 0) {
                 conn.rollback();
-                return false;
+                return null;
             }
+
+            // 行锁仍由本事务持有，读到的就是本次入账后的余额和版本号；余额加上条带子行，即账户总余额
+            String sql2 = "SELECT u.balance + " + STRIPED_BALANCE + ", u.version FROM bank_user u WHERE u.account = ?";
+            pstmt2 = conn.prepareStatement(sql2);
+            pstmt2.setString(1, account);
+            rs = pstmt2.executeQuery();
+            if (!rs.next()) {
+                conn.rollback();
+                return null;
+            }
+            // 从合计前的余额起逐笔累加，还原每笔入账后的余额
+            BigDecimal running = rs.getBigDecimal(1).subtract(total);
+            long version = rs.getLong(2);
+            List<AccountBalance> balances = new ArrayList<>(amounts.size());
+            List<LedgerEntry> entries = new ArrayList<>(amounts.size());
+            for (BigDecimal amount : amounts) {
+                running = running.add(amount);
+                balances.add(new AccountBalance(running, version));
+                entries.add(new LedgerEntry(account, null, amount, type, running));
+            }
+            LedgerWriter.append(conn, entries);
+            conn.commit();
+            return balances;
         } catch (SQLException e) {
             e.printStackTrace();
             try {
@@ -167,7 +420,281 @@ public class UserDaoImpl implements UserDao {
             } catch (SQLException ex) {
                 ex.printStackTrace();
             }
-            return false;
+            // 提交语句本身失败时入账可能已经生效，不能按"未入账"返回null
+            throw new IllegalStateException("入账执行失败，结果未知：" + e.getMessage(), e);
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            DBUtil.close(null, pstmt1);
+            DBUtil.close(conn, pstmt2, rs);
+        }
+    }
+
+    @Override
+    public TransferResult transfer(String fromAccount, String toAccount, BigDecimal amount) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transferOnce(fromAccount, toAccount, amount);
+            } catch (SQLException e) {
+                if (TransactionRetry.shouldRetry(e, attempt)) {
+                    continue;
+                }
+                e.printStackTrace();
+                return TransferResult.of(TransferResult.Status.SYSTEM_ERROR);
+            }
+        }
+    }
+
+    /**
+     * 执行一次转账事务
+     * 第一条语句按账号升序对两行加排他锁（SELECT ... FOR UPDATE），同时取得校验所需的状态和余额；
+     * 所有转账都按同一顺序加锁，方向相反的两笔转账不会互相死锁。
+     * 校验通过后第二条语句一次更新两行余额
+     * @param fromAccount 转出账号
+     * @param toAccount 转入账号
+     * @param amount 转账金额
+     * @return 转账结果
+     * @throws SQLException 事务执行失败（已回滚），由调用方判断是否重试
+     */
+    private TransferResult transferOnce(String fromAccount, String toAccount, BigDecimal amount) throws SQLException {
+        Connection conn = null;
+        PreparedStatement pstmt1 = null;
+        PreparedStatement pstmt2 = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return TransferResult.of(TransferResult.Status.SYSTEM_ERROR);
+            }
+            conn.setAutoCommit(false);
+
+            String first = fromAccount.compareTo(toAccount) < 0 ? fromAccount : toAccount;
+            String second = first.equals(fromAccount) ? toAccount : fromAccount;
+            // 子查询是不加锁的一致性读，只锁两个主行；条带子行合计只用于计算转账后的总余额
+            String sql1 = "SELECT u.account, u.balance, u.status, u.version, " + STRIPED_BALANCE
+                + " FROM bank_user u WHERE u.account IN (?, ?) ORDER BY u.account FOR UPDATE";
+            pstmt1 = conn.prepareStatement(sql1);
+            pstmt1.setString(1, first);
+            pstmt1.setString(2, second);
+            rs = pstmt1.executeQuery();
+
+            BigDecimal fromBalance = null;
+            BigDecimal toBalance = null;
+            Integer fromStatus = null;
+            Integer toStatus = null;
+            long fromVersion = 0;
+            long toVersion = 0;
+            BigDecimal fromStriped = BigDecimal.ZERO;
+            BigDecimal toStriped = BigDecimal.ZERO;
+            while (rs.next()) {
+                if (fromAccount.equals(rs.getString(1))) {
+                    fromBalance = rs.getBigDecimal(2);
+                    fromStatus = rs.getInt(3);
+                    fromVersion = rs.getLong(4);
+                    fromStriped = rs.getBigDecimal(5);
+                } else {
+                    toBalance = rs.getBigDecimal(2);
+                    toStatus = rs.getInt(3);
+                    toVersion = rs.getLong(4);
+                    toStriped = rs.getBigDecimal(5);
+                }
+            }
+
+            TransferResult.Status failure = null;
+            if (fromStatus == null) {
+                failure = TransferResult.Status.FROM_ACCOUNT_NOT_FOUND;
+            } else if (fromStatus != 1) {
+                failure = TransferResult.Status.FROM_ACCOUNT_LOCKED;
+            } else if (toStatus == null) {
+                failure = TransferResult.Status.TO_ACCOUNT_NOT_FOUND;
+            } else if (toStatus != 1) {
+                failure = TransferResult.Status.TO_ACCOUNT_LOCKED;
+            } else if (fromBalance.compareTo(amount) < 0) {
+                failure = TransferResult.Status.INSUFFICIENT_FUNDS;
+            }
+            if (failure != null) {
+                conn.rollback();
+                return TransferResult.of(failure);
+            }
+
+            String sql2 = "UPDATE bank_user SET balance = balance + CASE WHEN account = ? THEN ? ELSE ? END, version = version + 1 WHERE account IN (?, ?)";
+            pstmt2 = conn.prepareStatement(sql2);
+            pstmt2.setString(1, fromAccount);
+            pstmt2.setBigDecimal(2, amount.negate());
+            pstmt2.setBigDecimal(3, amount);
+            pstmt2.setString(4, first);
+            pstmt2.setString(5, second);
+            pstmt2.executeUpdate();
+
+            // 余额校验只看主行（扣款只能从主行扣），返回和记入流水的是含条带子行的总余额
+            BigDecimal fromAfter = fromBalance.subtract(amount).add(fromStriped);
+            BigDecimal toAfter = toBalance.add(amount).add(toStriped);
+            List<LedgerEntry> entries = new ArrayList<>(2);
+            entries.add(new LedgerEntry(fromAccount, toAccount, amount.negate(), TransactionType.TRANSFER_OUT, fromAfter));
+            entries.add(new LedgerEntry(toAccount, fromAccount, amount, TransactionType.TRANSFER_IN, toAfter));
+            LedgerWriter.append(conn, entries);
+
+            conn.commit();
+            // 两行各被UPDATE一次，提交后的版本号为加锁时读到的版本号加1
+            return TransferResult.success(fromAfter, toAfter, fromVersion + 1, toVersion + 1);
+        } catch (SQLException e) {
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            throw e;
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            DBUtil.close(null, pstmt2);
+            DBUtil.close(conn, pstmt1, rs);
+        }
+    }
+
+    @Override
+    public BatchTransferResult batchTransfer(String fromAccount, List<TransferLeg> legs, BatchTransferMode mode) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return batchTransferOnce(fromAccount, legs, mode);
+            } catch (SQLException e) {
+                if (TransactionRetry.shouldRetry(e, attempt)) {
+                    continue;
+                }
+                e.printStackTrace();
+                return failedBatch(legs, TransferResult.Status.SYSTEM_ERROR);
+            }
+        }
+    }
+
+    /**
+     * 执行一次批量转账事务
+     * 先按账号升序锁定转出账号和所有转入账号，逐笔校验后
+     * 用一条语句扣除总额，再用JDBC批处理一次性提交所有入账
+     * @param fromAccount 转出账号
+     * @param legs 转账列表
+     * @param mode 批量模式
+     * @return 批量转账结果
+     * @throws SQLException 事务执行失败（已回滚），由调用方判断是否重试
+     */
+    private BatchTransferResult batchTransferOnce(String fromAccount, List<TransferLeg> legs,
+                                                  BatchTransferMode mode) throws SQLException {
+        Connection conn = null;
+        PreparedStatement pstmt1 = null;
+        PreparedStatement pstmt2 = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return failedBatch(legs, TransferResult.Status.SYSTEM_ERROR);
+            }
+            conn.setAutoCommit(false);
+
+            TreeSet<String> accounts = new TreeSet<>();
+            accounts.add(fromAccount);
+            for (TransferLeg leg : legs) {
+                if (leg.getToAccount() != null) {
+                    accounts.add(leg.getToAccount());
+                }
+            }
+            Map<String, BigDecimal> striped = new HashMap<>();
+            Map<String, User> locked = lockAccounts(conn, accounts, striped);
+
+            User from = locked.get(fromAccount);
+            if (from == null || !from.isActive()) {
+                conn.rollback();
+                return failedBatch(legs, from == null
+                    ? TransferResult.Status.FROM_ACCOUNT_NOT_FOUND : TransferResult.Status.FROM_ACCOUNT_LOCKED);
+            }
+
+            // 逐笔校验，成功的转账直接在内存中累计余额变化
+            List<TransferResult.Status> statuses = new ArrayList<>(legs.size());
+            BigDecimal remaining = from.getBalance();
+            BigDecimal total = BigDecimal.ZERO;
+            boolean anyFailed = false;
+            for (TransferLeg leg : legs) {
+                TransferResult.Status status = checkLeg(fromAccount, leg, locked, remaining);
+                if (status == TransferResult.Status.SUCCESS) {
+                    remaining = remaining.subtract(leg.getAmount());
+                    total = total.add(leg.getAmount());
+                } else {
+                    anyFailed = true;
+                }
+                statuses.add(status);
+            }
+
+            if (total.signum() == 0 || (anyFailed && mode == BatchTransferMode.ALL_OR_NOTHING)) {
+                conn.rollback();
+                List<TransferResult> results = new ArrayList<>(legs.size());
+                for (TransferResult.Status status : statuses) {
+                    results.add(TransferResult.of(status == TransferResult.Status.SUCCESS
+                        ? TransferResult.Status.ABORTED : status));
+                }
+                return new BatchTransferResult(false, results, BigDecimal.ZERO, null);
+            }
+
+            String sql1 = "UPDATE bank_user SET balance = balance - ?, version = version + 1 WHERE account = ?";
+            pstmt1 = conn.prepareStatement(sql1);
+            pstmt1.setBigDecimal(1, total);
+            pstmt1.setString(2, fromAccount);
+            pstmt1.executeUpdate();
+
+            String sql2 = "UPDATE bank_user SET balance = balance + ?, version = version + 1 WHERE account = ?";
+            pstmt2 = conn.prepareStatement(sql2);
+            // 以下余额用于返回和记入流水，是含条带子行的总余额
+            BigDecimal fromBalance = from.getBalance().add(striped.getOrDefault(fromAccount, BigDecimal.ZERO));
+            List<TransferResult> results = new ArrayList<>(legs.size());
+            List<LedgerEntry> entries = new ArrayList<>(legs.size() * 2);
+            for (int i = 0; i < legs.size(); i++) {
+                TransferLeg leg = legs.get(i);
+                if (statuses.get(i) != TransferResult.Status.SUCCESS) {
+                    results.add(TransferResult.of(statuses.get(i)));
+                    continue;
+                }
+                pstmt2.setBigDecimal(1, leg.getAmount());
+                pstmt2.setString(2, leg.getToAccount());
+                pstmt2.addBatch();
+
+                // 每条入账语句使转入账号的版本号加1，同一账号的后一笔转账版本号更大
+                User to = locked.get(leg.getToAccount());
+                to.setBalance(to.getBalance().add(leg.getAmount()));
+                to.setVersion(to.getVersion() + 1);
+                fromBalance = fromBalance.subtract(leg.getAmount());
+                BigDecimal toBalance = to.getBalance().add(striped.getOrDefault(leg.getToAccount(), BigDecimal.ZERO));
+                results.add(TransferResult.success(fromBalance, toBalance, null, to.getVersion()));
+                entries.add(new LedgerEntry(fromAccount, leg.getToAccount(), leg.getAmount().negate(),
+                    TransactionType.TRANSFER_OUT, fromBalance));
+                entries.add(new LedgerEntry(leg.getToAccount(), fromAccount, leg.getAmount(),
+                    TransactionType.TRANSFER_IN, toBalance));
+            }
+            pstmt2.executeBatch();
+            LedgerWriter.append(conn, entries);
+
+            conn.commit();
+            // 转出账号只被扣款语句UPDATE一次
+            return new BatchTransferResult(true, results, total, fromBalance, from.getVersion() + 1);
+        } catch (SQLException e) {
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            throw e;
         } finally {
             try {
                 if (conn != null) {
@@ -176,9 +703,97 @@ public class UserDaoImpl implements UserDao {
             } catch (SQLException e) {
                 e.printStackTrace();
             }
-            DBUtil.close(conn, pstmt1);
             DBUtil.close(null, pstmt2);
+            DBUtil.close(conn, pstmt1);
+        }
+    }
+
+    /**
+     * 按账号升序对一组账号加排他锁，并返回其余额和状态
+     * 账号按固定大小分片查询，分片之间同样保持升序，与单笔转账的加锁顺序一致；
+     * 分片不足时用最后一个账号补齐占位符，使SQL文本固定，便于语句缓存复用
+     * @param conn 事务所在的连接
+     * @param accounts 升序排列的账号集合
+     * @param striped 输出参数，账号 -> 条带子行余额合计（一致性读，不加锁）
+     * @return 账号 -> 用户（仅包含account、balance、status、version，balance为主行余额），不存在的账号不在结果中
+     */
+    private Map<String, User> lockAccounts(Connection conn, TreeSet<String> accounts,
+                                           Map<String, BigDecimal> striped) throws SQLException {
+        Map<String, User> locked = new HashMap<>();
+        List<String> sorted = new ArrayList<>(accounts);
+        for (int offset = 0; offset < sorted.size(); offset += IN_CHUNK_SIZE) {
+            List<String> chunk = sorted.subList(offset, Math.min(offset + IN_CHUNK_SIZE, sorted.size()));
+            int size = chunk.size() <= SMALL_IN_CHUNK_SIZE ? SMALL_IN_CHUNK_SIZE : IN_CHUNK_SIZE;
+
+            StringBuilder sql = new StringBuilder("SELECT u.account, u.balance, u.status, u.version, ")
+                .append(STRIPED_BALANCE).append(" FROM bank_user u WHERE u.account IN (");
+            for (int i = 0; i < size; i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(") ORDER BY u.account FOR UPDATE");
+
+            PreparedStatement pstmt = null;
+            ResultSet rs = null;
+            try {
+                pstmt = conn.prepareStatement(sql.toString());
+                for (int i = 0; i < size; i++) {
+                    pstmt.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+                rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    User user = new User();
+                    user.setAccount(rs.getString(1));
+                    user.setBalance(rs.getBigDecimal(2));
+                    user.setStatus(rs.getInt(3));
+                    user.setVersion(rs.getLong(4));
+                    locked.put(user.getAccount(), user);
+                    striped.put(user.getAccount(), rs.getBigDecimal(5));
+                }
+            } finally {
+                DBUtil.close(null, pstmt, rs);
+            }
+        }
+        return locked;
+    }
+
+    /**
+     * 校验批量转账中的一笔转账
+     * @param fromAccount 转出账号
+     * @param leg 待校验的转账
+     * @param locked 已锁定的账号信息
+     * @param remaining 执行到这一笔时转出账号的剩余余额
+     * @return 校验结果状态，通过时为SUCCESS
+     */
+    private TransferResult.Status checkLeg(String fromAccount, TransferLeg leg, Map<String, User> locked,
+                                           BigDecimal remaining) {
+        if (leg.getToAccount() == null || leg.getAmount() == null || leg.getAmount().signum() <= 0) {
+            return TransferResult.Status.INVALID_REQUEST;
+        }
+        if (fromAccount.equals(leg.getToAccount())) {
+            return TransferResult.Status.SAME_ACCOUNT;
         }
+        User to = locked.get(leg.getToAccount());
+        if (to == null) {
+            return TransferResult.Status.TO_ACCOUNT_NOT_FOUND;
+        }
+        if (!to.isActive()) {
+            return TransferResult.Status.TO_ACCOUNT_LOCKED;
+        }
+        if (remaining.compareTo(leg.getAmount()) < 0) {
+            return TransferResult.Status.INSUFFICIENT_FUNDS;
+        }
+        return TransferResult.Status.SUCCESS;
+    }
+
+    /**
+     * 构造所有转账都以同一原因失败的批量结果
+     */
+    private BatchTransferResult failedBatch(List<TransferLeg> legs, TransferResult.Status status) {
+        List<TransferResult> results = new ArrayList<>(legs.size());
+        for (int i = 0; i < legs.size(); i++) {
+            results.add(TransferResult.of(status));
+        }
+        return new BatchTransferResult(false, results, BigDecimal.ZERO, null);
     }
 
     @Override
@@ -196,7 +811,7 @@ public class UserDaoImpl implements UserDao {
             if (conn == null) {
                 return false;
             }
-            String sql = "UPDATE bank_user SET status = ? WHERE account = ?";
+            String sql = "UPDATE bank_user SET status = ?, version = version + 1 WHERE account = ?";
             pstmt = conn.prepareStatement(sql);
             pstmt.setInt(1, status);
             pstmt.setString(2, account);
@@ -211,6 +826,157 @@ public class UserDaoImpl implements UserDao {
         }
     }
 
+    @Override
+    public UpdateResult updateStatusIfVersion(String account, Integer status, long expectedVersion) {
+        return updateIfVersion("UPDATE bank_user SET status = ?, version = version + 1 WHERE account = ? AND version = ?",
+            account, expectedVersion, pstmt -> pstmt.setInt(1, status));
+    }
+
+    @Override
+    public UpdateResult updateStatusIfStatus(String account, Integer status, Integer expectedStatus) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return UpdateResult.ERROR;
+            }
+            pstmt = conn.prepareStatement("UPDATE bank_user SET status = ?, version = version + 1 WHERE account = ? AND status = ?");
+            pstmt.setInt(1, status);
+            pstmt.setString(2, account);
+            pstmt.setInt(3, expectedStatus);
+            if (pstmt.executeUpdate() > 0) {
+                return UpdateResult.SUCCESS;
+            }
+            pstmt.close();
+
+            pstmt = conn.prepareStatement("SELECT status FROM bank_user WHERE account = ?");
+            pstmt.setString(1, account);
+            rs = pstmt.executeQuery();
+            return rs.next() ? UpdateResult.CONFLICT : UpdateResult.NOT_FOUND;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return UpdateResult.ERROR;
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+    }
+
+    @Override
+    public UpdateResult updateBalanceIfVersion(String account, BigDecimal newBalance, long expectedVersion) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return UpdateResult.ERROR;
+            }
+            conn.setAutoCommit(false);
+
+            // 流水需要变动金额，在同一事务中锁定该版本的行读出旧余额；版本号不一致时不加锁直接判定冲突
+            pstmt = conn.prepareStatement("SELECT balance FROM bank_user WHERE account = ? AND version = ? FOR UPDATE");
+            pstmt.setString(1, account);
+            pstmt.setLong(2, expectedVersion);
+            rs = pstmt.executeQuery();
+            BigDecimal oldBalance = rs.next() ? rs.getBigDecimal(1) : null;
+            DBUtil.close(null, pstmt, rs);
+            rs = null;
+            pstmt = null;
+            if (oldBalance == null) {
+                conn.rollback();
+                pstmt = conn.prepareStatement("SELECT version FROM bank_user WHERE account = ?");
+                pstmt.setString(1, account);
+                rs = pstmt.executeQuery();
+                return rs.next() ? UpdateResult.CONFLICT : UpdateResult.NOT_FOUND;
+            }
+
+            // 新余额是账户总余额：按主行、子行的顺序锁定条带子行，并入旧余额后清零，与条带归并的加锁顺序一致
+            pstmt = conn.prepareStatement("SELECT COALESCE(SUM(balance), 0) FROM bank_balance_stripe WHERE account = ? FOR UPDATE");
+            pstmt.setString(1, account);
+            rs = pstmt.executeQuery();
+            BigDecimal striped = rs.next() ? rs.getBigDecimal(1) : BigDecimal.ZERO;
+            DBUtil.close(null, pstmt, rs);
+            rs = null;
+            pstmt = null;
+            if (striped.signum() != 0) {
+                pstmt = conn.prepareStatement("UPDATE bank_balance_stripe SET balance = 0 WHERE account = ?");
+                pstmt.setString(1, account);
+                pstmt.executeUpdate();
+                DBUtil.close(null, pstmt);
+                pstmt = null;
+                oldBalance = oldBalance.add(striped);
+            }
+
+            pstmt = conn.prepareStatement("UPDATE bank_user SET balance = ?, version = version + 1 WHERE account = ? AND version = ?");
+            pstmt.setBigDecimal(1, newBalance);
+            pstmt.setString(2, account);
+            pstmt.setLong(3, expectedVersion);
+            pstmt.executeUpdate();
+            LedgerWriter.append(conn, new LedgerEntry(account, null, newBalance.subtract(oldBalance),
+                TransactionType.ADJUST, newBalance));
+            conn.commit();
+            return UpdateResult.SUCCESS;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            rollbackQuietly(conn);
+            return UpdateResult.ERROR;
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            DBUtil.close(conn, pstmt, rs);
+        }
+    }
+
+    /**
+     * 执行带版本号条件的单行更新
+     * SQL的第1个参数为新值，第2个为账号，第3个为预期版本号；
+     * 未更新任何行时再按主键查询一次，区分版本冲突和账号不存在
+     * @param sql 更新SQL
+     * @param account 账号
+     * @param expectedVersion 预期版本号
+     * @param binder 绑定新值的回调
+     * @return 更新结果
+     */
+    private UpdateResult updateIfVersion(String sql, String account, long expectedVersion, ValueBinder binder) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return UpdateResult.ERROR;
+            }
+            pstmt = conn.prepareStatement(sql);
+            binder.bind(pstmt);
+            pstmt.setString(2, account);
+            pstmt.setLong(3, expectedVersion);
+            if (pstmt.executeUpdate() > 0) {
+                return UpdateResult.SUCCESS;
+            }
+            pstmt.close();
+
+            pstmt = conn.prepareStatement("SELECT version FROM bank_user WHERE account = ?");
+            pstmt.setString(1, account);
+            rs = pstmt.executeQuery();
+            return rs.next() ? UpdateResult.CONFLICT : UpdateResult.NOT_FOUND;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return UpdateResult.ERROR;
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+    }
+
     @Override
     public List<User> findAll() {
         Connection conn = null;
@@ -223,12 +989,12 @@ public class UserDaoImpl implements UserDao {
             if (conn == null) {
                 return users;
             }
-            String sql = "SELECT * FROM bank_user ORDER BY create_time DESC";
+            String sql = USER_WITH_STRIPES + " ORDER BY u.create_time DESC";
             pstmt = conn.prepareStatement(sql);
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
-                users.add(parseUser(rs));
+                users.add(parseUserWithStripes(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -251,13 +1017,13 @@ public class UserDaoImpl implements UserDao {
             if (conn == null) {
                 return users;
             }
-            String sql = "SELECT * FROM bank_user WHERE status = ? ORDER BY create_time DESC";
+            String sql = USER_WITH_STRIPES + " WHERE u.status = ? ORDER BY u.create_time DESC";
             pstmt = conn.prepareStatement(sql);
             pstmt.setInt(1, status);
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
-                users.add(parseUser(rs));
+                users.add(parseUserWithStripes(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -268,6 +1034,260 @@ public class UserDaoImpl implements UserDao {
         return users;
     }
 
+    @Override
+    public Page<User> findPage(Integer status, LocalDateTime afterCreateTime, String afterAccount, int pageSize) {
+        return queryPage(USER_COLUMNS_WITH_STRIPES, status, afterCreateTime, afterAccount, pageSize,
+            this::parseUserWithStripes);
+    }
+
+    @Override
+    public Page<UserSummary> findSummaryPage(Integer status, LocalDateTime afterCreateTime, String afterAccount,
+                                             int pageSize) {
+        return queryPage(SUMMARY_COLUMNS, status, afterCreateTime, afterAccount, pageSize, this::parseSummary);
+    }
+
+    /**
+     * 按(create_time, account)倒序执行键集分页查询
+     * @param columns 查询的列，bank_user的别名为u
+     * @param status 用户状态，null表示不限状态
+     * @param afterCreateTime 上一页最后一条记录的注册时间，查询第一页时为null
+     * @param afterAccount 上一页最后一条记录的账号，查询第一页时为null
+     * @param pageSize 页大小
+     * @param mapper 行映射函数
+     * @return 分页结果
+     */
+    private <T> Page<T> queryPage(String columns, Integer status, LocalDateTime afterCreateTime, String afterAccount,
+                                  int pageSize, RowMapper<T> mapper) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        List<T> rows = new ArrayList<>();
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return Page.of(rows, pageSize);
+            }
+            boolean seek = afterCreateTime != null && afterAccount != null;
+            // 翻页条件展开成create_time <= ? AND (create_time < ? OR account < ?)：
+            // 与(create_time, account) < (?, ?)等价，但create_time <= ?能直接作为索引的范围上界，
+            // 不依赖优化器识别行构造器比较，带status前缀时同样是一段有界的索引区间
+            String seekCondition = "create_time <= ? AND (create_time < ? OR account < ?)";
+            StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(" FROM bank_user u");
+            if (status != null) {
+                sql.append(seek ? " WHERE status = ? AND " + seekCondition : " WHERE status = ?");
+            } else if (seek) {
+                sql.append(" WHERE ").append(seekCondition);
+            }
+            sql.append(" ORDER BY create_time DESC, account DESC LIMIT ?");
+
+            pstmt = conn.prepareStatement(sql.toString());
+            int index = 1;
+            if (status != null) {
+                pstmt.setInt(index++, status);
+            }
+            if (seek) {
+                Timestamp after = Timestamp.valueOf(afterCreateTime);
+                pstmt.setTimestamp(index++, after);
+                pstmt.setTimestamp(index++, after);
+                pstmt.setString(index++, afterAccount);
+            }
+            pstmt.setInt(index, pageSize + 1);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                rows.add(mapper.map(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+
+        return Page.of(rows, pageSize);
+    }
+
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        return stream(USER_WITH_STRIPES + " ORDER BY u.account", fetchSize, this::parseUserWithStripes);
+    }
+
+    @Override
+    public Stream<String> streamAccounts(int fetchSize) {
+        return stream("SELECT account FROM bank_user ORDER BY account", fetchSize, rs -> rs.getString(1));
+    }
+
+    @Override
+    public Map<String, LocalDateTime> findAccountsCreatedSince(LocalDateTime since) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        Map<String, LocalDateTime> accounts = new HashMap<>();
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return null;
+            }
+            pstmt = conn.prepareStatement("SELECT account, create_time FROM bank_user WHERE create_time >= ?");
+            pstmt.setTimestamp(1, Timestamp.valueOf(since));
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                Timestamp createTime = rs.getTimestamp(2);
+                accounts.put(rs.getString(1), createTime != null ? createTime.toLocalDateTime() : since);
+            }
+            return accounts;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+    }
+
+    @Override
+    public LocalDateTime currentTime() {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return null;
+            }
+            pstmt = conn.prepareStatement("SELECT NOW()");
+            rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            Timestamp now = rs.getTimestamp(1);
+            return now != null ? now.toLocalDateTime() : null;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+    }
+
+    @Override
+    public long countAll() {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return -1;
+            }
+            pstmt = conn.prepareStatement("SELECT COUNT(*) FROM bank_user");
+            rs = pstmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : -1;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        } finally {
+            DBUtil.close(conn, pstmt, rs);
+        }
+    }
+
+    /**
+     * 以服务端游标执行查询并把结果集包装成流
+     * 语句使用三参数的prepareStatement创建，不进入语句缓存，
+     * 流关闭时依次关闭结果集、语句并归还连接
+     * @param sql 查询SQL
+     * @param fetchSize 每次从服务端游标读取的行数
+     * @param mapper 行映射函数
+     * @return 结果流，数据库不可用或查询失败时返回空流
+     */
+    private <T> Stream<T> stream(String sql, int fetchSize, RowMapper<T> mapper) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBUtil.getConnection();
+            if (conn == null) {
+                return Stream.empty();
+            }
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize);
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            DBUtil.close(conn, pstmt, rs);
+            return Stream.empty();
+        }
+
+        Connection streamConn = conn;
+        PreparedStatement streamStmt = pstmt;
+        ResultSet streamRs = rs;
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!streamRs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(streamRs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("遍历查询结果失败：" + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false)
+            .onClose(() -> DBUtil.close(streamConn, streamStmt, streamRs));
+    }
+
+    /**
+     * 生成开户流水
+     */
+    private LedgerEntry openingEntry(User user) {
+        return new LedgerEntry(user.getAccount(), null, user.getBalance(), TransactionType.OPENING, user.getBalance());
+    }
+
+    private void rollbackQuietly(Connection conn) {
+        try {
+            if (conn != null && !conn.getAutoCommit()) {
+                conn.rollback();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 解析附带条带余额的用户，余额为主行余额与子行合计之和
+     */
+    private User parseUserWithStripes(ResultSet rs) throws SQLException {
+        User user = parseUser(rs);
+        BigDecimal striped = rs.getBigDecimal("striped_balance");
+        if (striped != null && striped.signum() != 0) {
+            user.setBalance(user.getBalance().add(striped));
+        }
+        return user;
+    }
+
+    /**
+     * 解析用户摘要
+     * 按列序号读取，列顺序必须与SUMMARY_COLUMNS一致
+     */
+    private UserSummary parseSummary(ResultSet rs) throws SQLException {
+        Timestamp createTime = rs.getTimestamp(6);
+        return new UserSummary(
+            rs.getString(1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getBigDecimal(4),
+            rs.getInt(5),
+            createTime != null ? createTime.toLocalDateTime() : null,
+            rs.getLong(7));
+    }
+
     private User parseUser(ResultSet rs) throws SQLException {
         User user = new User();
         user.setAccount(rs.getString("account"));
@@ -287,7 +1307,25 @@ public class UserDaoImpl implements UserDao {
         if (updateTime != null) {
             user.setUpdateTime(updateTime.toLocalDateTime());
         }
+        user.setVersion(rs.getLong("version"));
 
         return user;
     }
+
+    /**
+     * 语句参数绑定回调
+     */
+    @FunctionalInterface
+    private interface ValueBinder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
+    /**
+     * 结果集行映射函数
+     * @param <T> 映射后的类型
+     */
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
 }
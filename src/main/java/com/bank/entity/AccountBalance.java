@@ -0,0 +1,42 @@
+package com.bank.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * 账户余额快照
+ * 余额写入事务在持有行锁时读回的余额和版本号；并发写入的完成顺序与提交顺序可能不同，
+ * 写穿缓存时按版本号判断先后，只接受比缓存更新的快照
+ */
+public class AccountBalance {
+    /** 写入后的余额 */
+    private final BigDecimal balance;
+
+    /** 写入后的版本号 */
+    private final long version;
+
+    /**
+     * 构造函数
+     * @param balance 写入后的余额
+     * @param version 写入后的版本号
+     */
+    public AccountBalance(BigDecimal balance, long version) {
+        this.balance = balance;
+        this.version = version;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountBalance{" +
+                "balance=" + balance +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,11 @@
+package com.bank.entity;
+
+/**
+ * 批量转账模式
+ */
+public enum BatchTransferMode {
+    /** 全部成功或全部不执行：任意一笔失败则整个批次回滚 */
+    ALL_OR_NOTHING,
+    /** 逐笔结果：跳过失败的转账，其余转账照常提交 */
+    PER_LEG
+}
@@ -0,0 +1,107 @@
+package com.bank.entity;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量转账结果
+ * 包含批次是否提交、每笔转账的结果以及实际扣款总额
+ */
+public class BatchTransferResult {
+    /** 批次是否已提交（没有任何一笔成功时为false） */
+    private final boolean committed;
+
+    /** 每笔转账的结果，顺序与提交的转账列表一致 */
+    private final List<TransferResult> legResults;
+
+    /** 实际扣款总额 */
+    private final BigDecimal totalAmount;
+
+    /** 批次执行后转出账号的余额，未提交时为null */
+    private final BigDecimal fromBalance;
+
+    /** 批次提交后转出账号的版本号，未提交或未知时为null */
+    private final Long fromVersion;
+
+    /**
+     * 构造函数
+     * @param committed 批次是否已提交
+     * @param legResults 每笔转账的结果
+     * @param totalAmount 实际扣款总额
+     * @param fromBalance 批次执行后转出账号的余额
+     */
+    public BatchTransferResult(boolean committed, List<TransferResult> legResults,
+                               BigDecimal totalAmount, BigDecimal fromBalance) {
+        this(committed, legResults, totalAmount, fromBalance, null);
+    }
+
+    /**
+     * 构造函数
+     * @param committed 批次是否已提交
+     * @param legResults 每笔转账的结果
+     * @param totalAmount 实际扣款总额
+     * @param fromBalance 批次执行后转出账号的余额
+     * @param fromVersion 批次提交后转出账号的版本号
+     */
+    public BatchTransferResult(boolean committed, List<TransferResult> legResults,
+                               BigDecimal totalAmount, BigDecimal fromBalance, Long fromVersion) {
+        this.committed = committed;
+        this.legResults = Collections.unmodifiableList(legResults);
+        this.totalAmount = totalAmount;
+        this.fromBalance = fromBalance;
+        this.fromVersion = fromVersion;
+    }
+
+    /**
+     * 统计成功的转账笔数
+     * @return 成功笔数
+     */
+    public int getSuccessCount() {
+        int count = 0;
+        for (TransferResult result : legResults) {
+            if (result.isSuccess()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 检查是否所有转账都成功
+     * @return true-全部成功
+     */
+    public boolean isAllSuccess() {
+        return committed && getSuccessCount() == legResults.size();
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    public List<TransferResult> getLegResults() {
+        return legResults;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public BigDecimal getFromBalance() {
+        return fromBalance;
+    }
+
+    public Long getFromVersion() {
+        return fromVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchTransferResult{" +
+                "committed=" + committed +
+                ", legs=" + legResults.size() +
+                ", success=" + getSuccessCount() +
+                ", totalAmount=" + totalAmount +
+                '}';
+    }
+}
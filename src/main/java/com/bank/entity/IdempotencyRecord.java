@@ -0,0 +1,77 @@
+package com.bank.entity;
+
+/**
+ * 幂等键记录
+ * 对应数据库中的 bank_idempotency_key 表，记录一个请求键由哪个操作、哪个账号占用，以及操作完成后的结果
+ * 不可变对象，可在线程间共享
+ */
+public final class IdempotencyRecord {
+    /** 请求键，由客户端为每个业务请求生成，重试时保持不变 */
+    private final String requestKey;
+    /** 操作描述：操作名称及对方账号、金额，如"TRANSFER 13800138001 100" */
+    private final String operation;
+    /** 发起操作的账号 */
+    private final String account;
+    /** 操作是否已完成 */
+    private final boolean completed;
+    /** 操作结果的序列化形式，未完成时为null */
+    private final String result;
+
+    /**
+     * 构造函数
+     * @param requestKey 请求键
+     * @param operation 操作描述
+     * @param account 发起操作的账号
+     * @param completed 操作是否已完成
+     * @param result 操作结果的序列化形式
+     */
+    public IdempotencyRecord(String requestKey, String operation, String account, boolean completed, String result) {
+        this.requestKey = requestKey;
+        this.operation = operation;
+        this.account = account;
+        this.completed = completed;
+        this.result = result;
+    }
+
+    /**
+     * 判断记录是否属于指定的操作和账号
+     * 同一个键被用于不同的请求时视为客户端错误
+     * @param operation 操作描述
+     * @param account 账号
+     * @return true-属于该请求
+     */
+    public boolean matches(String operation, String account) {
+        return this.operation.equals(operation) && this.account.equals(account);
+    }
+
+    public String getRequestKey() {
+        return requestKey;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+                "requestKey='" + requestKey + '\'' +
+                ", operation='" + operation + '\'' +
+                ", account='" + account + '\'' +
+                ", completed=" + completed +
+                ", result='" + result + '\'' +
+                '}';
+    }
+}
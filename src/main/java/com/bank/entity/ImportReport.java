@@ -0,0 +1,78 @@
+package com.bank.entity;
+
+/**
+ * 批量导入报告
+ * 汇总一次用户批量导入的行数统计、耗时和被拒绝行报告的位置
+ */
+public class ImportReport {
+    /** 读取的数据行总数（不含表头） */
+    private final long totalRows;
+
+    /** 成功导入的行数 */
+    private final long importedRows;
+
+    /** 被拒绝的行数 */
+    private final long rejectedRows;
+
+    /** 导入耗时（毫秒） */
+    private final long elapsedMillis;
+
+    /** 被拒绝行报告文件路径 */
+    private final String rejectReportPath;
+
+    /**
+     * 构造函数
+     * @param totalRows 读取的数据行总数
+     * @param importedRows 成功导入的行数
+     * @param rejectedRows 被拒绝的行数
+     * @param elapsedMillis 导入耗时（毫秒）
+     * @param rejectReportPath 被拒绝行报告文件路径
+     */
+    public ImportReport(long totalRows, long importedRows, long rejectedRows,
+                        long elapsedMillis, String rejectReportPath) {
+        this.totalRows = totalRows;
+        this.importedRows = importedRows;
+        this.rejectedRows = rejectedRows;
+        this.elapsedMillis = elapsedMillis;
+        this.rejectReportPath = rejectReportPath;
+    }
+
+    /**
+     * 计算导入吞吐量
+     * @return 每秒处理的行数
+     */
+    public double getRowsPerSecond() {
+        return elapsedMillis > 0 ? totalRows * 1000.0 / elapsedMillis : totalRows;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getRejectReportPath() {
+        return rejectReportPath;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{" +
+                "totalRows=" + totalRows +
+                ", importedRows=" + importedRows +
+                ", rejectedRows=" + rejectedRows +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rejectReportPath='" + rejectReportPath + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,122 @@
+package com.bank.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 资金流水实体类
+ * 对应数据库中的 bank_transaction 表，每次余额变动追加一条，只增不改
+ */
+public class LedgerEntry {
+    /** 流水ID，自增主键，单调递增 */
+    private Long id;
+
+    /** 余额发生变动的账号 */
+    private String account;
+
+    /** 对方账号，仅转账时有值 */
+    private String counterparty;
+
+    /** 变动金额，入账为正，出账为负 */
+    private BigDecimal amount;
+
+    /** 流水类型 */
+    private TransactionType type;
+
+    /** 变动后的余额 */
+    private BigDecimal balanceAfter;
+
+    /** 记账时间 */
+    private LocalDateTime createTime;
+
+    /**
+     * 默认构造函数
+     */
+    public LedgerEntry() {
+    }
+
+    /**
+     * 带参构造函数，用于追加流水
+     * @param account 余额发生变动的账号
+     * @param counterparty 对方账号，非转账时为null
+     * @param amount 变动金额，入账为正，出账为负
+     * @param type 流水类型
+     * @param balanceAfter 变动后的余额
+     */
+    public LedgerEntry(String account, String counterparty, BigDecimal amount, TransactionType type,
+                       BigDecimal balanceAfter) {
+        this.account = account;
+        this.counterparty = counterparty;
+        this.amount = amount;
+        this.type = type;
+        this.balanceAfter = balanceAfter;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public void setAccount(String account) {
+        this.account = account;
+    }
+
+    public String getCounterparty() {
+        return counterparty;
+    }
+
+    public void setCounterparty(String counterparty) {
+        this.counterparty = counterparty;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public void setType(TransactionType type) {
+        this.type = type;
+    }
+
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public void setBalanceAfter(BigDecimal balanceAfter) {
+        this.balanceAfter = balanceAfter;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerEntry{" +
+                "id=" + id +
+                ", account='" + account + '\'' +
+                ", counterparty='" + counterparty + '\'' +
+                ", amount=" + amount +
+                ", type=" + type +
+                ", balanceAfter=" + balanceAfter +
+                '}';
+    }
+}
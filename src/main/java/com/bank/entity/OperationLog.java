@@ -11,6 +11,9 @@ public class OperationLog {
     /** 日志唯一ID，自增主键 */
     private Long id;
     
+    /** 记录ID（UUID），提交日志时生成，补写时据此去重 */
+    private String recordId;
+
     /** 执行操作的管理员ID */
     private Integer adminId;
     
@@ -142,6 +145,14 @@ public class OperationLog {
         this.errorMessage = errorMessage;
     }
 
+    public String getRecordId() {
+        return recordId;
+    }
+
+    public void setRecordId(String recordId) {
+        this.recordId = recordId;
+    }
+
     public LocalDateTime getCreateTime() {
         return createTime;
     }
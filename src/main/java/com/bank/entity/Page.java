@@ -0,0 +1,67 @@
+package com.bank.entity;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 分页查询结果
+ * 用于键集（seek）分页：下一页的查询条件取自本页最后一条记录，
+ * 因此不需要总数和偏移量，每页的查询代价只与页大小有关
+ * @param <T> 记录类型
+ */
+public class Page<T> {
+    /** 本页记录 */
+    private final List<T> items;
+
+    /** 是否还有下一页 */
+    private final boolean hasMore;
+
+    /**
+     * 构造函数
+     * @param items 本页记录
+     * @param hasMore 是否还有下一页
+     */
+    public Page(List<T> items, boolean hasMore) {
+        this.items = Collections.unmodifiableList(items);
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * 由多查询一条的结果构造分页
+     * 查询时取pageSize+1条，多出的一条只用于判断是否还有下一页
+     * @param rows 最多pageSize+1条记录
+     * @param pageSize 页大小
+     * @param <T> 记录类型
+     * @return 分页结果
+     */
+    public static <T> Page<T> of(List<T> rows, int pageSize) {
+        if (rows.size() > pageSize) {
+            return new Page<>(rows.subList(0, pageSize), true);
+        }
+        return new Page<>(rows, false);
+    }
+
+    /**
+     * 获取本页最后一条记录，作为下一页的查询起点
+     * @return 最后一条记录，本页为空时返回null
+     */
+    public T getLast() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "size=" + items.size() +
+                ", hasMore=" + hasMore +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+package com.bank.entity;
+
+/**
+ * 资金流水类型
+ * 对应bank_transaction表的type列，数据库中存储code以保持行窄
+ */
+public enum TransactionType {
+    /** 开户时的初始余额（批量导入） */
+    OPENING(1, "开户"),
+    /** 存款 */
+    DEPOSIT(2, "存款"),
+    /** 取款 */
+    WITHDRAW(3, "取款"),
+    /** 转账转出 */
+    TRANSFER_OUT(4, "转出"),
+    /** 转账转入 */
+    TRANSFER_IN(5, "转入"),
+    /** 管理员调整余额 */
+    ADJUST(6, "余额调整");
+
+    /** 数据库中存储的类型编码 */
+    private final int code;
+    /** 显示名称 */
+    private final String label;
+
+    TransactionType(int code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 根据类型编码获取流水类型
+     * @param code 类型编码
+     * @return 流水类型，未知编码返回null
+     */
+    public static TransactionType fromCode(int code) {
+        for (TransactionType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
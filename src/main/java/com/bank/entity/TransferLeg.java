@@ -0,0 +1,41 @@
+package com.bank.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * 批量转账中的一笔转账
+ * 表示从批量转账的转出账号向某个账号转入一笔金额
+ */
+public class TransferLeg {
+    /** 转入账号 */
+    private final String toAccount;
+
+    /** 转账金额 */
+    private final BigDecimal amount;
+
+    /**
+     * 构造函数
+     * @param toAccount 转入账号
+     * @param amount 转账金额
+     */
+    public TransferLeg(String toAccount, BigDecimal amount) {
+        this.toAccount = toAccount;
+        this.amount = amount;
+    }
+
+    public String getToAccount() {
+        return toAccount;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferLeg{" +
+                "toAccount='" + toAccount + '\'' +
+                ", amount=" + amount +
+                '}';
+    }
+}
@@ -0,0 +1,171 @@
+package com.bank.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * 转账结果
+ * 携带转账是否成功以及失败的具体原因，调用方无需再查询数据库判断失败原因
+ */
+public class TransferResult {
+    /**
+     * 转账结果状态
+     */
+    public enum Status {
+        /** 转账成功 */
+        SUCCESS("转账成功"),
+        /** 参数无效（账号为空或金额不大于0） */
+        INVALID_REQUEST("转账参数无效"),
+        /** 转出账号与转入账号相同 */
+        SAME_ACCOUNT("不能向自己的账号转账"),
+        /** 转出账号不存在 */
+        FROM_ACCOUNT_NOT_FOUND("转出账号不存在"),
+        /** 转入账号不存在 */
+        TO_ACCOUNT_NOT_FOUND("对方账号不存在"),
+        /** 转出账号已锁定或注销 */
+        FROM_ACCOUNT_LOCKED("转出账号已被锁定"),
+        /** 转入账号已锁定或注销 */
+        TO_ACCOUNT_LOCKED("对方账号已被锁定"),
+        /** 余额不足 */
+        INSUFFICIENT_FUNDS("余额不足"),
+        /** 同一请求键的请求正在处理、已被其他请求使用或暂时无法确认 */
+        DUPLICATE_REQUEST("重复的请求，请稍后查看余额确认结果"),
+        /** 批量转账中其他转账失败，整批回滚，本笔未执行 */
+        ABORTED("同批次其他转账失败，本笔未执行"),
+        /** 数据库连接失败或执行异常 */
+        SYSTEM_ERROR("系统繁忙，请稍后重试");
+
+        /** 面向用户的提示信息 */
+        private final String message;
+
+        Status(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /** 结果状态 */
+    private final Status status;
+    /** 转账后转出账号的余额，仅成功时有值 */
+    private final BigDecimal fromBalance;
+    /** 转账后转入账号的余额，仅成功时有值 */
+    private final BigDecimal toBalance;
+    /** 转账提交后转出账号的版本号，未知时为null */
+    private final Long fromVersion;
+    /** 转账提交后转入账号的版本号，未知时为null */
+    private final Long toVersion;
+
+    /**
+     * 构造函数
+     * @param status 结果状态
+     */
+    public TransferResult(Status status) {
+        this(status, null, null);
+    }
+
+    /**
+     * 构造函数
+     * @param status 结果状态
+     * @param fromBalance 转账后转出账号的余额
+     * @param toBalance 转账后转入账号的余额
+     */
+    public TransferResult(Status status, BigDecimal fromBalance, BigDecimal toBalance) {
+        this(status, fromBalance, toBalance, null, null);
+    }
+
+    /**
+     * 构造函数
+     * @param status 结果状态
+     * @param fromBalance 转账后转出账号的余额
+     * @param toBalance 转账后转入账号的余额
+     * @param fromVersion 转账提交后转出账号的版本号，未知时为null
+     * @param toVersion 转账提交后转入账号的版本号，未知时为null
+     */
+    public TransferResult(Status status, BigDecimal fromBalance, BigDecimal toBalance,
+                          Long fromVersion, Long toVersion) {
+        this.status = status;
+        this.fromBalance = fromBalance;
+        this.toBalance = toBalance;
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+    }
+
+    /**
+     * 创建成功结果
+     * @param fromBalance 转账后转出账号的余额
+     * @param toBalance 转账后转入账号的余额
+     * @return 转账结果
+     */
+    public static TransferResult success(BigDecimal fromBalance, BigDecimal toBalance) {
+        return new TransferResult(Status.SUCCESS, fromBalance, toBalance);
+    }
+
+    /**
+     * 创建携带版本号的成功结果
+     * @param fromBalance 转账后转出账号的余额
+     * @param toBalance 转账后转入账号的余额
+     * @param fromVersion 转账提交后转出账号的版本号，未知时为null
+     * @param toVersion 转账提交后转入账号的版本号，未知时为null
+     * @return 转账结果
+     */
+    public static TransferResult success(BigDecimal fromBalance, BigDecimal toBalance,
+                                         Long fromVersion, Long toVersion) {
+        return new TransferResult(Status.SUCCESS, fromBalance, toBalance, fromVersion, toVersion);
+    }
+
+    /**
+     * 创建指定状态的结果
+     * @param status 结果状态
+     * @return 转账结果
+     */
+    public static TransferResult of(Status status) {
+        return new TransferResult(status);
+    }
+
+    /**
+     * 检查转账是否成功
+     * @return true-成功
+     */
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public BigDecimal getFromBalance() {
+        return fromBalance;
+    }
+
+    public BigDecimal getToBalance() {
+        return toBalance;
+    }
+
+    public Long getFromVersion() {
+        return fromVersion;
+    }
+
+    public Long getToVersion() {
+        return toVersion;
+    }
+
+    /**
+     * 获取面向用户的提示信息
+     * @return 提示信息
+     */
+    public String getMessage() {
+        return status.getMessage();
+    }
+
+    @Override
+    public String toString() {
+        return "TransferResult{" +
+                "status=" + status +
+                ", fromBalance=" + fromBalance +
+                ", toBalance=" + toBalance +
+                '}';
+    }
+}
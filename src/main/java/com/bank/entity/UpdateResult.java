@@ -0,0 +1,36 @@
+package com.bank.entity;
+
+/**
+ * 带版本号条件的更新结果
+ * 乐观并发控制下，更新只在版本号与读取时一致才生效，版本号不一致作为单独的结果返回，
+ * 调用方据此提示用户数据已变化并重新读取，而不是覆盖他人的修改
+ */
+public enum UpdateResult {
+    /** 更新成功，版本号已加1 */
+    SUCCESS("操作成功"),
+    /** 版本号不一致，记录已被其他操作修改，本次未做任何修改 */
+    CONFLICT("数据已被其他操作修改，请刷新后重试"),
+    /** 账号不存在 */
+    NOT_FOUND("账号不存在"),
+    /** 数据库连接失败或执行异常 */
+    ERROR("系统繁忙，请稍后重试");
+
+    /** 面向用户的提示信息 */
+    private final String message;
+
+    UpdateResult(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * 检查更新是否成功
+     * @return true-成功
+     */
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
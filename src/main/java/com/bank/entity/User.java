@@ -36,6 +36,9 @@ public class User {
     /** 最后更新时间 */
     private LocalDateTime updateTime;
 
+    /** 版本号，每次修改余额或状态加1，用于乐观并发控制 */
+    private Long version;
+
     /**
      * 默认构造函数
      */
@@ -143,6 +146,14 @@ public class User {
         this.updateTime = updateTime;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "User{" +
@@ -151,6 +162,7 @@ public class User {
                 ", phone='" + phone + '\'' +
                 ", balance=" + balance +
                 ", status=" + status +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,100 @@
+package com.bank.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 用户摘要
+ * 用户列表展示所需的最少字段的不可变投影，不包含密码和身份证号，
+ * 管理员界面的列表查询只读取这些列，减少传输数据量和对象分配
+ */
+public final class UserSummary {
+    /** 用户账号 */
+    private final String account;
+
+    /** 用户姓名 */
+    private final String name;
+
+    /** 手机号 */
+    private final String phone;
+
+    /** 账户余额 */
+    private final BigDecimal balance;
+
+    /** 账户状态：1-正常，0-已锁定/注销 */
+    private final int status;
+
+    /** 注册时间 */
+    private final LocalDateTime createTime;
+
+    /** 版本号，按版本号条件更新时作为预期版本 */
+    private final long version;
+
+    /**
+     * 构造函数
+     * @param account 用户账号
+     * @param name 用户姓名
+     * @param phone 手机号
+     * @param balance 账户余额
+     * @param status 账户状态
+     * @param createTime 注册时间
+     * @param version 版本号
+     */
+    public UserSummary(String account, String name, String phone, BigDecimal balance,
+                       int status, LocalDateTime createTime, long version) {
+        this.account = account;
+        this.name = name;
+        this.phone = phone;
+        this.balance = balance;
+        this.status = status;
+        this.createTime = createTime;
+        this.version = version;
+    }
+
+    /**
+     * 检查账户是否处于正常状态
+     * @return true-正常，false-已锁定
+     */
+    public boolean isActive() {
+        return status == 1;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "UserSummary{" +
+                "account='" + account + '\'' +
+                ", name='" + name + '\'' +
+                ", balance=" + balance +
+                ", status=" + status +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -1,6 +1,8 @@
 package com.bank.service;
 
 import com.bank.entity.OperationLog;
+import com.bank.entity.Page;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -10,25 +12,27 @@ import java.util.List;
 public interface OperationLogService {
     /**
      * 记录成功操作日志
+     * 日志由AuditLogWriter异步批量写入，返回时可能尚未落库
      * @param adminId 管理员ID
      * @param adminName 管理员姓名
      * @param operationType 操作类型
      * @param operationDesc 操作描述
      * @param targetAccount 目标账号
-     * @return 记录成功返回true，失败返回false
+     * @return 已提交写入返回true，失败返回false
      */
     boolean logOperation(Integer adminId, String adminName, String operationType,
                          String operationDesc, String targetAccount);
 
     /**
      * 记录失败操作日志
+     * 日志由AuditLogWriter异步批量写入，返回时可能尚未落库
      * @param adminId 管理员ID
      * @param adminName 管理员姓名
      * @param operationType 操作类型
      * @param operationDesc 操作描述
      * @param targetAccount 目标账号
      * @param errorMsg 错误信息
-     * @return 记录成功返回true，失败返回false
+     * @return 已提交写入返回true，失败返回false
      */
     boolean logFailedOperation(Integer adminId, String adminName, String operationType,
                                String operationDesc, String targetAccount, String errorMsg);
@@ -66,4 +70,73 @@ public interface OperationLogService {
      * @return 最近的操作日志列表
      */
     List<OperationLog> getRecentLogs(int limit);
+
+    /**
+     * 分页查询管理员的日志（键集分页）
+     * 按操作时间倒序，下一页以上一页最后一条记录的(操作时间, ID)为起点
+     * @param adminId 管理员ID
+     * @param from 起始时间（含），null-不限
+     * @param to 结束时间（不含），null-不限
+     * @param afterCreateTime 上一页最后一条记录的操作时间，第一页传null
+     * @param afterId 上一页最后一条记录的ID，第一页传null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<OperationLog> getLogsPageByAdmin(Integer adminId, LocalDateTime from, LocalDateTime to,
+                                          LocalDateTime afterCreateTime, Long afterId, int pageSize);
+
+    /**
+     * 分页查询指定类型的日志（键集分页）
+     * 按操作时间倒序，下一页以上一页最后一条记录的(操作时间, ID)为起点
+     * @param operationType 操作类型
+     * @param from 起始时间（含），null-不限
+     * @param to 结束时间（不含），null-不限
+     * @param afterCreateTime 上一页最后一条记录的操作时间，第一页传null
+     * @param afterId 上一页最后一条记录的ID，第一页传null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<OperationLog> getLogsPageByType(String operationType, LocalDateTime from, LocalDateTime to,
+                                         LocalDateTime afterCreateTime, Long afterId, int pageSize);
+
+    /**
+     * 分页查询涉及指定账号的日志（键集分页）
+     * 按操作时间倒序，下一页以上一页最后一条记录的(操作时间, ID)为起点
+     * @param account 目标用户账号
+     * @param from 起始时间（含），null-不限
+     * @param to 结束时间（不含），null-不限
+     * @param afterCreateTime 上一页最后一条记录的操作时间，第一页传null
+     * @param afterId 上一页最后一条记录的ID，第一页传null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<OperationLog> getLogsPageByAccount(String account, LocalDateTime from, LocalDateTime to,
+                                            LocalDateTime afterCreateTime, Long afterId, int pageSize);
+
+    /**
+     * 分页查询全部日志（键集分页）
+     * 按操作时间倒序，下一页以上一页最后一条记录的(操作时间, ID)为起点
+     * @param from 起始时间（含），null-不限
+     * @param to 结束时间（不含），null-不限
+     * @param afterCreateTime 上一页最后一条记录的操作时间，第一页传null
+     * @param afterId 上一页最后一条记录的ID，第一页传null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<OperationLog> getLogsPage(LocalDateTime from, LocalDateTime to,
+                                   LocalDateTime afterCreateTime, Long afterId, int pageSize);
+
+    /**
+     * 按描述和错误信息搜索最近的日志
+     * 在内存全文索引中查询（见LogSearchIndex），只覆盖最近logsearch.windowSize条日志
+     * @param query 查询语句：空格分隔的词全部匹配，双引号括起的短语按原文连续匹配
+     * @param adminId 管理员ID，null-不限
+     * @param operationType 操作类型，null-不限
+     * @param from 起始时间（含），null-不限
+     * @param to 结束时间（不含），null-不限
+     * @param limit 最多返回的条数
+     * @return 匹配的日志，按相关度从高到低排列
+     */
+    List<OperationLog> searchLogs(String query, Integer adminId, String operationType,
+                                  LocalDateTime from, LocalDateTime to, int limit);
 }
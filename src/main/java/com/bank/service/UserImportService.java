@@ -0,0 +1,22 @@
+package com.bank.service;
+
+import com.bank.entity.ImportReport;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 用户批量导入业务逻辑接口
+ * 用于合作网点开户等需要一次注册大量客户的场景
+ */
+public interface UserImportService {
+    /**
+     * 从CSV文件批量导入用户
+     * 文件第一行为表头：account,name,password,phone,id_card[,balance]
+     * 逐块流式读取，并行校验，过滤文件内重复和数据库中已存在的账号后批量写入
+     * @param csvFile 待导入的CSV文件（UTF-8编码）
+     * @param rejectReport 被拒绝行报告的输出路径，每行记录行号、原因和原始内容
+     * @return 导入报告
+     * @throws IOException 读取CSV或写入报告失败
+     */
+    ImportReport importUsers(Path csvFile, Path rejectReport) throws IOException;
+}
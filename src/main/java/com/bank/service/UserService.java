@@ -1,8 +1,19 @@
 package com.bank.service;
 
+import com.bank.entity.BatchTransferMode;
+import com.bank.entity.BatchTransferResult;
+import com.bank.entity.LedgerEntry;
+import com.bank.entity.Page;
+import com.bank.entity.TransferLeg;
+import com.bank.entity.TransferResult;
+import com.bank.entity.UpdateResult;
 import com.bank.entity.User;
+import com.bank.entity.UserSummary;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * 用户业务逻辑接口
@@ -18,13 +29,15 @@ public interface UserService {
     User login(String account, String password);
 
     /**
-     * 生成11位随机账号
-     * @return 生成的账号字符串
+     * 分配一个新的11位账号
+     * 账号从预留的号段中顺序分配并带校验位，保证不与已分配的账号重复
+     * @return 生成的账号字符串，分配失败返回null
      */
     String generateAccount();
 
     /**
      * 用户注册
+     * 账号为空时自动分配；账号已存在时由数据库主键约束拒绝，不再预先查询
      * @param user 要注册的用户信息
      * @return 注册成功返回true，失败返回false
      */
@@ -35,17 +48,51 @@ public interface UserService {
      * @param account 目标账号
      * @param amount 存款金额，必须大于0
      * @return 存款成功返回true，失败返回false
+     * @throws IllegalStateException 数据库执行失败，是否已入账未知
      */
     boolean deposit(String account, BigDecimal amount);
 
+    /**
+     * 异步存款操作
+     * 启用存款合并（deposit.coalesce.enabled）时与同一账号窗口内的其他存款合并写入，
+     * 未启用时在调用线程同步执行后返回已完成的Future
+     * @param account 目标账号
+     * @param amount 存款金额，必须大于0
+     * @return 完成为存款是否成功；数据库执行失败、是否已入账未知时异常完成
+     */
+    CompletableFuture<Boolean> depositAsync(String account, BigDecimal amount);
+
+    /**
+     * 带请求键的存款操作
+     * 同一个请求键只执行一次，重复提交直接返回第一次成功的结果；第一次被明确拒绝时可用同一个键重试
+     * @param account 目标账号
+     * @param amount 存款金额，必须大于0
+     * @param requestKey 请求键（不超过64个字符），为空时等同于不带键的存款
+     * @return 存款成功返回true；被拒绝（账号不存在、已锁定等）返回false
+     * @throws IllegalStateException 执行结果未知，或同一个键的请求仍在处理中；应使用同一个键重试
+     */
+    boolean deposit(String account, BigDecimal amount, String requestKey);
+
     /**
      * 取款操作
      * @param account 目标账号
      * @param amount 取款金额，必须大于0且余额充足
      * @return 取款成功返回true，失败返回false
+     * @throws IllegalStateException 数据库执行失败，是否已扣款未知
      */
     boolean withdraw(String account, BigDecimal amount);
 
+    /**
+     * 带请求键的取款操作
+     * 同一个请求键只执行一次，重复提交直接返回第一次成功的结果；第一次被明确拒绝时可用同一个键重试
+     * @param account 目标账号
+     * @param amount 取款金额，必须大于0且余额充足
+     * @param requestKey 请求键（不超过64个字符），为空时等同于不带键的取款
+     * @return 取款成功返回true；被拒绝（余额不足、账号已锁定等）返回false
+     * @throws IllegalStateException 执行结果未知，或同一个键的请求仍在处理中；应使用同一个键重试
+     */
+    boolean withdraw(String account, BigDecimal amount, String requestKey);
+
     /**
      * 转账操作
      * @param fromAccount 转出账号
@@ -55,6 +102,38 @@ public interface UserService {
      */
     boolean transfer(String fromAccount, String toAccount, BigDecimal amount);
 
+    /**
+     * 转账操作（返回详细结果）
+     * 在单个事务内完成账号校验、余额检查和资金划转
+     * @param fromAccount 转出账号
+     * @param toAccount 转入账号
+     * @param amount 转账金额，必须大于0
+     * @return 转账结果，失败时包含具体原因
+     */
+    TransferResult transferFunds(String fromAccount, String toAccount, BigDecimal amount);
+
+    /**
+     * 带请求键的转账操作
+     * 同一个请求键只执行一次，重复提交直接返回第一次成功的结果（含当时的余额）；第一次被明确拒绝时可用同一个键重试，
+     * SYSTEM_ERROR表示结果未知，请求键保留，同一个键的重试返回DUPLICATE_REQUEST
+     * @param fromAccount 转出账号
+     * @param toAccount 转入账号
+     * @param amount 转账金额，必须大于0
+     * @param requestKey 请求键（不超过64个字符），为空时等同于不带键的转账
+     * @return 转账结果；同一个键的请求仍在处理中时为DUPLICATE_REQUEST
+     */
+    TransferResult transferFunds(String fromAccount, String toAccount, BigDecimal amount, String requestKey);
+
+    /**
+     * 批量转账
+     * 从同一转出账号向多个账号转账（如代发工资、批量扣费），整批在一个事务内提交
+     * @param fromAccount 转出账号
+     * @param legs 转账列表，不能为空
+     * @param mode 批量模式：ALL_OR_NOTHING-任意一笔失败整批回滚，PER_LEG-跳过失败的转账
+     * @return 批量转账结果，包含每笔转账的结果
+     */
+    BatchTransferResult batchTransfer(String fromAccount, List<TransferLeg> legs, BatchTransferMode mode);
+
     /**
      * 查询账户余额
      * @param account 要查询的账号
@@ -76,6 +155,16 @@ public interface UserService {
      */
     User findByAccount(String account);
 
+    /**
+     * 判断账号是否可能存在
+     * 只查询内存中的账号过滤器，不访问数据库；返回false时账号一定不存在，
+     * 返回true时仍需以数据库为准（过滤器未构建完成时总是返回true）；
+     * 其他客户端注册的账号在过滤器下一次增量刷新（bloom.refreshInterval）之前会返回false
+     * @param account 账号
+     * @return false-一定不存在，true-可能存在
+     */
+    boolean accountMightExist(String account);
+
     /**
      * 查询所有用户
      * @return 所有用户列表
@@ -89,6 +178,47 @@ public interface UserService {
      */
     List<User> findUsersByStatus(Integer status);
 
+    /**
+     * 分页查询用户（键集分页）
+     * 按注册时间倒序，下一页以上一页最后一条记录的(注册时间, 账号)为起点
+     * @param status 用户状态：1-正常，0-锁定，null-不限
+     * @param afterCreateTime 上一页最后一条记录的注册时间，第一页传null
+     * @param afterAccount 上一页最后一条记录的账号，第一页传null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<User> findUsersPage(Integer status, LocalDateTime afterCreateTime, String afterAccount, int pageSize);
+
+    /**
+     * 分页查询用户摘要（键集分页）
+     * 用于列表展示，只包含账号、姓名、手机号、余额、状态和注册时间，不含密码和身份证号
+     * @param status 用户状态：1-正常，0-锁定，null-不限
+     * @param afterCreateTime 上一页最后一条记录的注册时间，第一页传null
+     * @param afterAccount 上一页最后一条记录的账号，第一页传null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<UserSummary> findUserSummaryPage(Integer status, LocalDateTime afterCreateTime, String afterAccount,
+                                          int pageSize);
+
+    /**
+     * 流式遍历所有用户，用于报表和导出等全表扫描场景
+     * 内存占用与用户数量无关；返回的流持有数据库连接，使用完毕必须关闭：
+     * try (Stream&lt;User&gt; users = userService.streamAllUsers()) { ... }
+     * @return 按账号排序的用户流
+     */
+    Stream<User> streamAllUsers();
+
+    /**
+     * 分页查询账户资金流水（键集分页）
+     * 最新的流水在前，下一页以本页最后一条流水的ID为起点
+     * @param account 账号
+     * @param beforeId 上一页最后一条流水的ID，第一页传null
+     * @param pageSize 页大小
+     * @return 分页结果
+     */
+    Page<LedgerEntry> findTransactionHistory(String account, Long beforeId, int pageSize);
+
     /**
      * 锁定用户账号
      * @param account 要锁定的账号
@@ -103,6 +233,26 @@ public interface UserService {
      */
     boolean unlockAccount(String account);
 
+    /**
+     * 按当前状态条件修改账号状态
+     * 管理员界面按列表中显示的状态提交，只有状态未变才生效，期间其他管理员改过状态时返回CONFLICT；
+     * 以状态而不是版本号为条件，账户正在存取款或转账时也能锁定
+     * @param account 账号
+     * @param status 状态：1-正常，0-锁定
+     * @param expectedStatus 读取时的状态
+     * @return 更新结果
+     */
+    UpdateResult changeStatus(String account, int status, int expectedStatus);
+
+    /**
+     * 为高并发入账的热点账户（如商户结算账户）启用余额条带
+     * 启用后存款分散到多个子行上并行提交，查询余额时合计子行，后台定期归并回主行
+     * @param account 账号
+     * @param stripes 子行数，不大于0时使用配置的默认值，最多128个
+     * @return 启用成功返回true
+     */
+    boolean enableHotAccount(String account, int stripes);
+
     /**
      * 管理员修改用户余额
      * @param account 用户账号
@@ -0,0 +1,257 @@
+package com.bank.service.impl;
+
+import com.bank.entity.User;
+import com.bank.util.DBUtil;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 账户缓存
+ * 服务层读取用户时先查缓存，未命中才查询数据库；服务层每次余额或状态写入成功后
+ * 直接把新值写入缓存（写穿），写入失败时使缓存失效，下次读取重新加载
+ * 特性：
+ * 1. 容量上限，超出时抽样淘汰最久未访问的条目
+ * 2. 条目写入后超过存活时间即过期，限制其他进程直接修改数据库时的不一致窗口
+ * 3. 同一账号并发未命中时只有一个线程查询数据库，其余线程等待其结果，避免缓存击穿
+ * 缓存中保存的是副本，返回给调用方的也是副本，调用方修改返回的对象不会影响缓存
+ * 每条UPDATE语句使版本号加1，写穿时使用写入事务读回的已提交版本号：并发写入的完成顺序
+ * 可能与提交顺序不同，只有版本号比缓存中更新的结果才写入缓存，否则使缓存失效，
+ * 不会用较早提交的余额覆盖较晚提交的余额
+ * 服务对象在各窗口中分别创建，缓存为进程内共享的静态实例
+ * 配置项：account.cache.maxSize（默认10000）、account.cache.ttl（默认30000毫秒）
+ */
+public final class AccountCache {
+    /** 最大条目数 */
+    private static final int MAX_SIZE = Math.max(1, DBUtil.getIntProperty("account.cache.maxSize", 10000));
+    /** 条目存活时间（毫秒） */
+    private static final long TTL_MILLIS = Math.max(0L, DBUtil.getLongProperty("account.cache.ttl", 30000L));
+    /** 淘汰时每轮抽样的条目数 */
+    private static final int EVICTION_SAMPLES = 8;
+
+    /** 账号 -> 缓存条目 */
+    private static final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    /** 正在加载的账号 -> 加载结果，写入和失效时移除，使进行中的加载结果不会覆盖新值 */
+    private static final ConcurrentHashMap<String, CompletableFuture<User>> loading = new ConcurrentHashMap<>();
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder LOADS = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+
+    private AccountCache() {
+    }
+
+    /**
+     * 读取账户，未命中时通过loader加载
+     * @param account 账号
+     * @param loader 从数据库加载用户的函数，账号不存在时返回null
+     * @return 用户副本，不存在返回null（不存在的结果不缓存）
+     */
+    public static User get(String account, Function<String, User> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(account);
+        if (entry != null && entry.expiresAt > now) {
+            HITS.increment();
+            entry.lastAccess = now;
+            return copy(entry.user);
+        }
+        MISSES.increment();
+
+        CompletableFuture<User> mine = new CompletableFuture<>();
+        CompletableFuture<User> inFlight = loading.putIfAbsent(account, mine);
+        if (inFlight != null) {
+            try {
+                return copy(inFlight.join());
+            } catch (CompletionException e) {
+                // 加载线程失败，由当前线程直接查询，不缓存结果
+                return loader.apply(account);
+            }
+        }
+
+        User user;
+        try {
+            LOADS.increment();
+            user = loader.apply(account);
+        } catch (RuntimeException e) {
+            loading.remove(account, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        User loaded = user;
+        // 只有加载期间没有发生写入或失效时才把结果放入缓存，与写穿操作在同一把桶锁下串行
+        entries.compute(account, (key, old) -> {
+            if (!loading.remove(key, mine)) {
+                return old;
+            }
+            return loaded != null ? new Entry(copy(loaded), System.currentTimeMillis()) : null;
+        });
+        mine.complete(user);
+        evictIfNecessary();
+        return copy(user);
+    }
+
+    /**
+     * 余额写入成功后更新缓存中的余额
+     * 未缓存的账号不做处理；条带账户的子行入账不改变主行版本号，版本号无法判断余额的新旧，直接使缓存失效
+     * @param account 账号
+     * @param balance 写入后的余额
+     * @param version 写入提交后的版本号，未知时为null
+     */
+    public static void updateBalance(String account, BigDecimal balance, Long version) {
+        if (balance == null || HotAccountRegistry.isStriped(account)) {
+            invalidate(account);
+            return;
+        }
+        apply(account, version, user -> user.setBalance(balance));
+    }
+
+    /**
+     * 状态写入成功后更新缓存中的状态
+     * 未缓存的账号不做处理
+     * @param account 账号
+     * @param status 写入后的状态
+     * @param version 写入提交后的版本号，未知时为null
+     */
+    public static void updateStatus(String account, int status, Long version) {
+        apply(account, version, user -> user.setStatus(status));
+    }
+
+    /**
+     * 按版本号把写入结果合并到缓存条目
+     * 版本号未知、缓存条目没有版本号或不比缓存中的新时移除条目，下次读取重新加载
+     * @param account 账号
+     * @param version 写入提交后的版本号
+     * @param change 对缓存副本的修改
+     */
+    private static void apply(String account, Long version, Consumer<User> change) {
+        entries.computeIfPresent(account, (key, old) -> {
+            loading.remove(key);
+            Long cached = old.user.getVersion();
+            if (version == null || cached == null || version <= cached) {
+                return null;
+            }
+            User user = copy(old.user);
+            change.accept(user);
+            user.setVersion(version);
+            return new Entry(user, System.currentTimeMillis());
+        });
+        loading.remove(account);
+    }
+
+    /**
+     * 使账户缓存失效
+     * 写入失败或写入后的值未知时调用
+     * @param account 账号
+     */
+    public static void invalidate(String account) {
+        entries.compute(account, (key, old) -> {
+            loading.remove(key);
+            return null;
+        });
+    }
+
+    /**
+     * 获取命中次数
+     * @return 命中次数
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * 获取未命中次数
+     * @return 未命中次数
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * 获取实际查询数据库加载的次数（并发未命中合并后的次数）
+     * @return 加载次数
+     */
+    public static long getLoadCount() {
+        return LOADS.sum();
+    }
+
+    /**
+     * 获取因容量或过期被淘汰的次数
+     * @return 淘汰次数
+     */
+    public static long getEvictionCount() {
+        return EVICTIONS.sum();
+    }
+
+    /**
+     * 获取当前缓存条目数
+     * @return 条目数
+     */
+    public static int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * 超出容量时抽样淘汰
+     * 每轮抽取若干条目，过期的直接移除，否则移除其中最久未访问的一条
+     */
+    private static void evictIfNecessary() {
+        while (entries.size() > MAX_SIZE) {
+            long now = System.currentTimeMillis();
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            Map.Entry<String, Entry> oldest = null;
+            boolean removedExpired = false;
+            for (int i = 0; i < EVICTION_SAMPLES && it.hasNext(); i++) {
+                Map.Entry<String, Entry> candidate = it.next();
+                if (candidate.getValue().expiresAt <= now) {
+                    if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                        EVICTIONS.increment();
+                        removedExpired = true;
+                    }
+                } else if (oldest == null || candidate.getValue().lastAccess < oldest.getValue().lastAccess) {
+                    oldest = candidate;
+                }
+            }
+            if (!removedExpired && oldest != null && entries.remove(oldest.getKey(), oldest.getValue())) {
+                EVICTIONS.increment();
+            }
+            if (!removedExpired && oldest == null) {
+                return;
+            }
+        }
+    }
+
+    private static User copy(User source) {
+        if (source == null) {
+            return null;
+        }
+        User user = new User(source.getAccount(), source.getName(), source.getPassword(), source.getPhone(),
+            source.getIdCard(), source.getBalance());
+        user.setStatus(source.getStatus());
+        user.setCreateTime(source.getCreateTime());
+        user.setUpdateTime(source.getUpdateTime());
+        user.setVersion(source.getVersion());
+        return user;
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+        private final User user;
+        private final long expiresAt;
+        private volatile long lastAccess;
+
+        private Entry(User user, long now) {
+            this.user = user;
+            this.expiresAt = now + TTL_MILLIS;
+            this.lastAccess = now;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.bank.service.impl;
+
+import com.bank.dao.UserDao;
+import com.bank.dao.impl.UserDaoImpl;
+import com.bank.util.BloomFilter;
+import com.bank.util.DBUtil;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 账号存在性过滤器
+ * 在内存中用布隆过滤器记录bank_user中的全部账号，查询账号前先判断：
+ * 过滤器回答"一定不存在"时直接返回，不访问数据库；回答"可能存在"时再查询数据库
+ * 启动时在后台线程中统计行数、按行数确定过滤器大小并流式扫描全部账号构建；
+ * 构建完成前以及构建失败时一律回答"可能存在"，退化为直接查询数据库
+ * 注册和批量导入成功后把新账号加入过滤器；注销的账号无法从布隆过滤器移除，只会表现为误判
+ * 其他客户端注册的账号不会经过本进程，构建完成后每隔bloom.refreshInterval毫秒按注册时间增量扫描一次新账号，
+ * 扫描起点比已见到的最新注册时间提前bloom.refreshOverlap毫秒，覆盖提交较晚的行；
+ * 第一次扫描的起点取构建开始前数据库的NOW()，与create_time同一个时钟，本机时钟偏差不会跳过其他客户端注册的账号；
+ * 因此其他客户端新注册的账号最多在一个刷新间隔内被判为"一定不存在"
+ * 配置项：bloom.expectedInsertions（默认1000000）、bloom.falsePositiveRate（默认0.01）、
+ * bloom.refreshInterval（默认10000）、bloom.refreshOverlap（默认300000）
+ * 误判率、内存占用和命中情况通过静态getter对外暴露
+ */
+public final class AccountExistenceFilter {
+    /** 预期账号数，实际行数的2倍更大时按2倍行数分配，给后续注册留出余量 */
+    private static final long EXPECTED_INSERTIONS = Math.max(1L,
+        DBUtil.getLongProperty("bloom.expectedInsertions", 1000000L));
+    /** 目标误判率 */
+    private static final double FALSE_POSITIVE_RATE = parseRate(DBUtil.getProperty("bloom.falsePositiveRate", "0.01"));
+    /** 构建时每次从服务端游标读取的行数 */
+    private static final int FETCH_SIZE = Math.max(1, DBUtil.getIntProperty("stream.fetchSize", 1000));
+    /** 增量刷新间隔（毫秒） */
+    private static final long REFRESH_INTERVAL = Math.max(1000L, DBUtil.getLongProperty("bloom.refreshInterval", 10000L));
+    /** 增量扫描起点相对已见到的最新注册时间提前的毫秒数 */
+    private static final long REFRESH_OVERLAP = Math.max(0L, DBUtil.getLongProperty("bloom.refreshOverlap", 300000L));
+
+    private static final UserDao userDao = new UserDaoImpl();
+    private static final AtomicBoolean started = new AtomicBoolean();
+
+    /** 当前过滤器，构建开始前为null；先发布再扫描，保证扫描期间注册的账号不会遗漏 */
+    private static volatile BloomFilter filter;
+    /** 过滤器是否已构建完成，未完成时不能回答"一定不存在" */
+    private static volatile boolean ready;
+    /** 已见到的最新注册时间，只由构建线程和刷新线程访问 */
+    private static LocalDateTime latestCreateTime;
+
+    /** 判断次数 */
+    private static final LongAdder LOOKUPS = new LongAdder();
+    /** 回答"一定不存在"而省去数据库查询的次数 */
+    private static final LongAdder DEFINITE_MISSES = new LongAdder();
+    /** 回答"可能存在"但数据库中实际不存在的次数 */
+    private static final LongAdder FALSE_POSITIVES = new LongAdder();
+    /** 增量刷新加入的账号数（含重叠区间内重复加入的） */
+    private static final LongAdder REFRESHED = new LongAdder();
+
+    private AccountExistenceFilter() {
+    }
+
+    /**
+     * 在后台线程中构建过滤器
+     * 只会执行一次，重复调用直接返回
+     */
+    public static void buildAsync() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        Thread t = new Thread(AccountExistenceFilter::build, "account-filter-builder");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static void build() {
+        long start = System.currentTimeMillis();
+        long count = userDao.countAll();
+        if (count < 0) {
+            System.out.println("账号过滤器构建失败：无法统计用户数，账号查询将直接访问数据库");
+            return;
+        }
+        // 扫描开始前数据库的时间作为第一次增量刷新的起点，扫描期间其他客户端注册的账号由刷新补上；
+        // create_time由数据库时钟填写，不能用本机时间，否则本机时钟偏快时会永久跳过这段时间注册的账号
+        LocalDateTime scanStart = userDao.currentTime();
+        if (scanStart == null) {
+            System.out.println("账号过滤器构建失败：无法读取数据库时间，账号查询将直接访问数据库");
+            return;
+        }
+        latestCreateTime = scanStart;
+        BloomFilter building = new BloomFilter(Math.max(EXPECTED_INSERTIONS, count * 2), FALSE_POSITIVE_RATE);
+        filter = building;
+
+        long scanned = 0;
+        try (Stream<String> accounts = userDao.streamAccounts(FETCH_SIZE)) {
+            for (String account : (Iterable<String>) accounts::iterator) {
+                building.put(account);
+                scanned++;
+            }
+        } catch (IllegalStateException e) {
+            System.out.println("账号过滤器构建失败：" + e.getMessage() + "，账号查询将直接访问数据库");
+            return;
+        }
+        if (count > 0 && scanned == 0) {
+            System.out.println("账号过滤器构建失败：未读取到任何账号，账号查询将直接访问数据库");
+            return;
+        }
+        ready = true;
+        System.out.println("账号过滤器构建完成：" + scanned + "个账号，耗时" + (System.currentTimeMillis() - start)
+            + "ms，占用内存" + building.getMemoryBytes() / 1024 + "KB，哈希函数" + building.getHashCount() + "个");
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "account-filter-refresher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, REFRESH_INTERVAL, REFRESH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 把上次刷新以来注册的账号加入过滤器
+     * 查询失败时保持原起点，下次重试
+     */
+    private static void refresh() {
+        BloomFilter current = filter;
+        Map<String, LocalDateTime> accounts = userDao.findAccountsCreatedSince(
+            latestCreateTime.minus(REFRESH_OVERLAP, ChronoUnit.MILLIS));
+        if (current == null || accounts == null) {
+            return;
+        }
+        for (Map.Entry<String, LocalDateTime> entry : accounts.entrySet()) {
+            current.put(entry.getKey());
+            if (entry.getValue().isAfter(latestCreateTime)) {
+                latestCreateTime = entry.getValue();
+            }
+        }
+        REFRESHED.add(accounts.size());
+    }
+
+    /**
+     * 判断账号是否可能存在
+     * @param account 账号
+     * @return false表示一定不存在，true表示可能存在（需查询数据库确认）
+     */
+    public static boolean mightExist(String account) {
+        LOOKUPS.increment();
+        BloomFilter current = filter;
+        if (!ready || current == null) {
+            return true;
+        }
+        if (current.mightContain(account)) {
+            return true;
+        }
+        DEFINITE_MISSES.increment();
+        return false;
+    }
+
+    /**
+     * 记录新增的账号
+     * 在账号写入数据库成功后调用
+     * @param account 账号
+     */
+    public static void add(String account) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(account);
+        }
+    }
+
+    /**
+     * 记录一次误判：过滤器回答可能存在，但数据库中不存在
+     * 构建完成前的"可能存在"不是过滤器给出的判断，不计入
+     */
+    public static void recordFalsePositive() {
+        if (ready) {
+            FALSE_POSITIVES.increment();
+        }
+    }
+
+    /**
+     * 过滤器是否已构建完成
+     * @return true-已可回答"一定不存在"
+     */
+    public static boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 按当前账号数估算的理论误判率
+     * @return 理论误判率，未构建时返回1
+     */
+    public static double getExpectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current != null ? current.expectedFalsePositiveRate() : 1.0;
+    }
+
+    /**
+     * 实际观测到的误判率：误判次数 / 对不存在账号的判断次数
+     * @return 观测误判率，没有样本时返回0
+     */
+    public static double getObservedFalsePositiveRate() {
+        long falsePositives = FALSE_POSITIVES.sum();
+        long negatives = falsePositives + DEFINITE_MISSES.sum();
+        return negatives == 0 ? 0.0 : (double) falsePositives / negatives;
+    }
+
+    /**
+     * 获取过滤器位数组占用的内存
+     * @return 字节数，未构建时返回0
+     */
+    public static long getMemoryBytes() {
+        BloomFilter current = filter;
+        return current != null ? current.getMemoryBytes() : 0;
+    }
+
+    /**
+     * 获取判断次数
+     * @return 判断次数
+     */
+    public static long getLookupCount() {
+        return LOOKUPS.sum();
+    }
+
+    /**
+     * 获取回答"一定不存在"的次数，即省去的数据库查询次数
+     * @return 一定不存在的次数
+     */
+    public static long getDefiniteMissCount() {
+        return DEFINITE_MISSES.sum();
+    }
+
+    /**
+     * 获取误判次数
+     * @return 误判次数
+     */
+    public static long getFalsePositiveCount() {
+        return FALSE_POSITIVES.sum();
+    }
+
+    /**
+     * 获取增量刷新加入的账号数
+     * @return 账号数，重叠区间内的账号会重复计入
+     */
+    public static long getRefreshedCount() {
+        return REFRESHED.sum();
+    }
+
+    private static double parseRate(String value) {
+        try {
+            double rate = Double.parseDouble(value.trim());
+            return rate > 0 && rate < 1 ? rate : 0.01;
+        } catch (NumberFormatException e) {
+            return 0.01;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.bank.service.impl;
+
+import com.bank.dao.SequenceDao;
+import com.bank.dao.impl.SequenceDaoImpl;
+import com.bank.util.DBUtil;
+
+/**
+ * 账号分配器
+ * 按号段从bank_sequence表预留序号，号段内的分配完全在内存中完成，
+ * 只有号段用完时才访问一次数据库；高水位持久化在表中，进程重启后从新号段继续，
+ * 已预留但未使用的序号直接作废，因此分配出的账号不会重复，注册前无需再查询账号是否存在
+ * 账号格式：前缀 + 序号（左补零） + 可选的Luhn校验位，共11位
+ * 配置项：account.prefix（默认6）、account.blockSize（默认100）、account.checkDigit（默认true）
+ * 服务对象在各窗口中分别创建，分配器为进程内单例，保证号段不会被重复使用
+ */
+public final class AccountNumberAllocator {
+    /** 账号总长度 */
+    private static final int ACCOUNT_LENGTH = 11;
+    /** bank_sequence中的序列名称 */
+    private static final String SEQUENCE_NAME = "user_account";
+
+    private static final AccountNumberAllocator INSTANCE = new AccountNumberAllocator();
+
+    private final SequenceDao sequenceDao = new SequenceDaoImpl();
+    /** 账号前缀，与旧的随机账号（以1开头）区分开 */
+    private final String prefix;
+    /** 是否追加Luhn校验位 */
+    private final boolean checkDigit;
+    /** 每次预留的号段大小 */
+    private final int blockSize;
+    /** 序号部分的位数 */
+    private final int serialDigits;
+    /** 序号上限（不含） */
+    private final long serialLimit;
+
+    /** 当前号段中下一个可用序号 */
+    private long next;
+    /** 当前号段的上界（不含） */
+    private long limit;
+
+    private AccountNumberAllocator() {
+        String configuredPrefix = DBUtil.getProperty("account.prefix", "6").trim();
+        this.prefix = configuredPrefix.matches("\\d{1,4}") ? configuredPrefix : "6";
+        this.checkDigit = Boolean.parseBoolean(DBUtil.getProperty("account.checkDigit", "true").trim());
+        this.blockSize = Math.max(1, DBUtil.getIntProperty("account.blockSize", 100));
+        this.serialDigits = ACCOUNT_LENGTH - prefix.length() - (checkDigit ? 1 : 0);
+        long max = 1;
+        for (int i = 0; i < serialDigits; i++) {
+            max *= 10;
+        }
+        this.serialLimit = max;
+    }
+
+    /**
+     * 获取分配器实例
+     * @return 分配器单例
+     */
+    public static AccountNumberAllocator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 分配一个新账号
+     * 当前号段用完时向数据库预留下一个号段
+     * @return 11位账号，数据库不可用或序号耗尽时返回null
+     */
+    public synchronized String nextAccount() {
+        if (next >= limit) {
+            long high = sequenceDao.reserveBlock(SEQUENCE_NAME, blockSize);
+            if (high < 0) {
+                System.out.println("预留账号号段失败");
+                return null;
+            }
+            next = high - blockSize;
+            limit = high;
+        }
+        if (next >= serialLimit) {
+            System.out.println("账号序号已耗尽，请调整account.prefix或关闭account.checkDigit");
+            return null;
+        }
+        return format(next++);
+    }
+
+    private String format(long serial) {
+        StringBuilder sb = new StringBuilder(ACCOUNT_LENGTH).append(prefix);
+        String digits = Long.toString(serial);
+        for (int i = digits.length(); i < serialDigits; i++) {
+            sb.append('0');
+        }
+        sb.append(digits);
+        if (checkDigit) {
+            sb.append(luhnDigit(sb));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 计算Luhn校验位
+     * 从右往左，紧挨校验位的数字起每隔一位乘2，乘积大于9时减9，校验位使总和为10的倍数
+     * @param payload 不含校验位的数字串
+     * @return 校验位字符
+     */
+    static char luhnDigit(CharSequence payload) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int d = payload.charAt(i) - '0';
+            if (doubled) {
+                d *= 2;
+                if (d > 9) {
+                    d -= 9;
+                }
+            }
+            sum += d;
+            doubled = !doubled;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+
+    /**
+     * 校验账号的Luhn校验位
+     * 只对本分配器生成的账号有意义，旧的随机账号没有校验位
+     * @param account 账号
+     * @return 校验位正确返回true
+     */
+    public static boolean isValidCheckDigit(String account) {
+        if (account == null || account.length() < 2 || !account.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        return luhnDigit(account.subSequence(0, account.length() - 1)) == account.charAt(account.length() - 1);
+    }
+}
@@ -1,16 +1,13 @@
 package com.bank.service.impl;
 
 import com.bank.dao.AdminDao;
-import com.bank.dao.OperationLogDao;
 import com.bank.dao.impl.AdminDaoImpl;
-import com.bank.dao.impl.OperationLogDaoImpl;
 import com.bank.entity.Admin;
 import com.bank.entity.OperationLog;
 import com.bank.service.AdminService;
 
 public class AdminServiceImpl implements AdminService {
     private final AdminDao adminDao = new AdminDaoImpl();
-    private final OperationLogDao logDao = new OperationLogDaoImpl();
 
     @Override
     public Admin login(String username, String password) {
@@ -22,7 +19,7 @@ public class AdminServiceImpl implements AdminService {
             OperationLog log = new OperationLog(admin.getId(), admin.getName(),
                 "ADMIN_LOGIN", "管理员登录系统");
             log.setIpAddress(ip);
-            logDao.insert(log);
+            AuditLogWriter.submit(log);
         }
         return admin;
     }
@@ -57,7 +54,7 @@ public class AdminServiceImpl implements AdminService {
         if (!result) {
             log.markFailed("禁用管理员失败");
         }
-        logDao.insert(log);
+        AuditLogWriter.submit(log);
 
         return result;
     }
@@ -77,7 +74,7 @@ public class AdminServiceImpl implements AdminService {
         if (!result) {
             log.markFailed("启用管理员失败");
         }
-        logDao.insert(log);
+        AuditLogWriter.submit(log);
 
         return result;
     }
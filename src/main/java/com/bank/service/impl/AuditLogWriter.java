@@ -0,0 +1,455 @@
+package com.bank.service.impl;
+
+import com.bank.dao.OperationLogDao;
+import com.bank.dao.impl.OperationLogDaoImpl;
+import com.bank.entity.OperationLog;
+import com.bank.util.DBUtil;
+import com.bank.util.MappedJournal;
+import java.io.IOException;
+import java.sql.Connection;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 操作日志异步写入器
+ * 调用方只把日志放入有界队列即返回，后台线程攒够一批（audit.batchSize）或等满刷新间隔（audit.flushInterval）
+ * 后以一次JDBC批处理写入bank_operation_log，管理员操作不再在自己的线程上等待数据库
+ * 队列满时按audit.overflow处理：BLOCK-调用方阻塞等待队列空出位置；SPILL-日志写入本地日志文件
+ * 数据库不可用（写入失败）或写入过慢（超过audit.slowFlushMillis）时进入降级，audit.retryInterval内的日志直接写入
+ * 内存映射的本地日志文件（见OperationLogJournal），不再逐批等待连接超时；本地文件中有日志时新日志也追加在后面，
+ * 由写入线程在降级结束后按原顺序分批补写，补写与确认之间崩溃产生的重复由record_id去重
+ * 进程退出时由关闭钩子写完队列中剩余的日志（最多等待audit.shutdownTimeout），本地文件中的日志在下次启动后补写
+ * 日志的时间和record_id在入队时确定，与实际写入数据库的时间无关
+ */
+public final class AuditLogWriter {
+    /** 队列满时的处理策略 */
+    public enum OverflowPolicy {
+        /** 调用方阻塞等待 */
+        BLOCK,
+        /** 写入本地日志文件 */
+        SPILL
+    }
+
+    /** 队列容量 */
+    private static final int CAPACITY = Math.max(1, DBUtil.getIntProperty("audit.queue.capacity", 10000));
+    /** 每批最多写入的条数 */
+    private static final int BATCH_SIZE = Math.max(1, DBUtil.getIntProperty("audit.batchSize", 100));
+    /** 刷新间隔（毫秒），从一批的第一条日志入队开始计时 */
+    private static final long FLUSH_INTERVAL_MILLIS = Math.max(1L, DBUtil.getLongProperty("audit.flushInterval", 200L));
+    /** 写入超过这个耗时（毫秒）视为数据库缓慢，进入降级 */
+    private static final long SLOW_FLUSH_MILLIS = Math.max(1L, DBUtil.getLongProperty("audit.slowFlushMillis", 2000L));
+    /** 每轮最多补写的批次数 */
+    private static final int REPLAY_BATCHES_PER_ROUND = 10;
+    /** 同一批补写连续失败这么多次且数据库可以连接时，改为逐条补写并跳过写不进去的日志 */
+    private static final int REPLAY_MAX_ATTEMPTS = 5;
+    /** 本地日志文件的候选个数，同一工作目录下多个实例各占一个 */
+    private static final int JOURNAL_SLOTS = 8;
+    /** 降级持续时间，即写入失败或过慢后多久再尝试数据库（毫秒） */
+    private static final long RETRY_INTERVAL_MILLIS = Math.max(100L, DBUtil.getLongProperty("audit.retryInterval", 5000L));
+    /** 进程退出时等待写完的最长时间（毫秒） */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = Math.max(0L, DBUtil.getLongProperty("audit.shutdownTimeout", 5000L));
+    /** 队列满时的处理策略 */
+    private static final OverflowPolicy OVERFLOW = parseOverflow(DBUtil.getProperty("audit.overflow", "BLOCK"));
+
+    private static final OperationLogDao logDao = new OperationLogDaoImpl();
+    private static final BlockingQueue<OperationLog> queue = new ArrayBlockingQueue<>(CAPACITY);
+    /** 本地日志文件，打开失败时为null */
+    private static final OperationLogJournal journal = openJournal();
+
+    /** 是否正在关闭，关闭后不再入队，直接同步写入 */
+    private static volatile boolean closing;
+    /** 最近一次写入失败或过慢的时间，用于判断是否处于降级 */
+    private static volatile long lastFailureMillis;
+    /** 本地文件开头这一批连续补写失败的次数，只由写入线程访问 */
+    private static int replayFailures;
+
+    /** 写入的批次数 */
+    private static final LongAdder FLUSHES = new LongAdder();
+    /** 写入失败的批次数 */
+    private static final LongAdder FAILED_FLUSHES = new LongAdder();
+    /** 成功写入的日志条数 */
+    private static final LongAdder WRITTEN = new LongAdder();
+    /** 写入本地日志文件的条数 */
+    private static final LongAdder JOURNALED = new LongAdder();
+    /** 从本地日志文件补写的条数 */
+    private static final LongAdder REPLAYED = new LongAdder();
+    /** 无法解析或无法写入数据库而从本地日志文件中跳过的条数 */
+    private static final LongAdder SKIPPED = new LongAdder();
+    /** 写入耗时合计（纳秒） */
+    private static final LongAdder FLUSH_NANOS = new LongAdder();
+    /** 单批最长写入耗时（纳秒） */
+    private static final AtomicLong MAX_FLUSH_NANOS = new AtomicLong();
+
+    /** 写入线程，在计数器之后初始化 */
+    private static final Thread writer = startWriter();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(AuditLogWriter::shutdown, "audit-log-shutdown"));
+    }
+
+    private AuditLogWriter() {
+    }
+
+    /**
+     * 提交一条操作日志
+     * @param log 日志对象
+     * @return 已入队、已写入本地文件或已写入数据库返回true；等待时被中断或写入失败返回false
+     */
+    public static boolean submit(OperationLog log) {
+        if (log.getCreateTime() == null) {
+            log.setCreateTime(LocalDateTime.now());
+        }
+        if (log.getRecordId() == null) {
+            log.setRecordId(UUID.randomUUID().toString());
+        }
+        if (closing) {
+            return write(List.of(log));
+        }
+        if (OVERFLOW == OverflowPolicy.BLOCK) {
+            try {
+                queue.put(log);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (queue.offer(log)) {
+            return true;
+        }
+        return journal(List.of(log));
+    }
+
+    /**
+     * 获取当前排队的日志条数
+     * @return 队列长度
+     */
+    public static int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * 获取写入的批次数
+     * @return 批次数
+     */
+    public static long getFlushCount() {
+        return FLUSHES.sum();
+    }
+
+    /**
+     * 获取写入失败的批次数
+     * @return 失败批次数
+     */
+    public static long getFailedFlushCount() {
+        return FAILED_FLUSHES.sum();
+    }
+
+    /**
+     * 获取成功写入的日志条数
+     * @return 日志条数
+     */
+    public static long getWrittenCount() {
+        return WRITTEN.sum();
+    }
+
+    /**
+     * 获取写入本地日志文件的条数
+     * @return 日志条数
+     */
+    public static long getJournaledCount() {
+        return JOURNALED.sum();
+    }
+
+    /**
+     * 获取从本地日志文件补写的条数
+     * @return 日志条数
+     */
+    public static long getReplayedCount() {
+        return REPLAYED.sum();
+    }
+
+    /**
+     * 获取从本地日志文件中跳过的条数（无法解析，或数据库可用时仍反复写入失败）
+     * @return 条数
+     */
+    public static long getSkippedCount() {
+        return SKIPPED.sum();
+    }
+
+    /**
+     * 获取本地日志文件中尚未补写的字节数
+     * @return 字节数，本地文件不可用时为0
+     */
+    public static int getJournalPendingBytes() {
+        return journal == null ? 0 : journal.getPendingBytes();
+    }
+
+    /**
+     * 获取平均每批的写入耗时
+     * @return 平均耗时（毫秒），尚未写入时为0
+     */
+    public static double getAverageFlushMillis() {
+        long flushes = FLUSHES.sum();
+        return flushes == 0 ? 0 : FLUSH_NANOS.sum() / 1_000_000.0 / flushes;
+    }
+
+    /**
+     * 获取单批最长写入耗时
+     * @return 最长耗时（毫秒）
+     */
+    public static double getMaxFlushMillis() {
+        return MAX_FLUSH_NANOS.get() / 1_000_000.0;
+    }
+
+    /**
+     * 停止接收新日志并写完队列中剩余的日志
+     * 由关闭钩子调用
+     */
+    static void shutdown() {
+        closing = true;
+        writer.interrupt();
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 写入线程未能在时限内退出时，剩余日志按同样的规则写入，进入本地文件的下次启动后补写
+        List<OperationLog> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+    }
+
+    private static Thread startWriter() {
+        Thread t = new Thread(AuditLogWriter::runLoop, "audit-log-writer");
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    private static void runLoop() {
+        List<OperationLog> batch = new ArrayList<>(BATCH_SIZE);
+        while (!closing || !queue.isEmpty()) {
+            try {
+                try {
+                    collect(batch);
+                } catch (InterruptedException e) {
+                    // 关闭时被中断，写完已取出的和队列中剩余的日志后退出
+                    queue.drainTo(batch);
+                }
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    batch.clear();
+                }
+                if (!closing) {
+                    replayJournal();
+                }
+            } catch (RuntimeException e) {
+                // 意外异常不能结束写入线程，否则BLOCK策略下队列写满后所有管理员操作都会阻塞
+                System.out.println("操作日志写入线程发生异常"
+                    + (batch.isEmpty() ? "" : "，丢失" + batch.size() + "条日志") + "：" + e.getMessage());
+                e.printStackTrace();
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 收集一批日志：等待第一条，随后在刷新间隔内攒到批次大小为止
+     */
+    private static void collect(List<OperationLog> batch) throws InterruptedException {
+        OperationLog first = queue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS);
+        while (batch.size() < BATCH_SIZE) {
+            queue.drainTo(batch, BATCH_SIZE - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= BATCH_SIZE || remaining <= 0) {
+                break;
+            }
+            OperationLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * 写入一批日志并记录耗时
+     * @return 写入成功返回true
+     */
+    private static boolean flush(List<OperationLog> batch) {
+        long start = System.nanoTime();
+        boolean ok = logDao.insertBatch(batch);
+        long elapsed = System.nanoTime() - start;
+        FLUSHES.increment();
+        FLUSH_NANOS.add(elapsed);
+        MAX_FLUSH_NANOS.accumulateAndGet(elapsed, Math::max);
+        if (ok) {
+            WRITTEN.add(batch.size());
+        } else {
+            FAILED_FLUSHES.increment();
+        }
+        if (!ok || elapsed > TimeUnit.MILLISECONDS.toNanos(SLOW_FLUSH_MILLIS)) {
+            lastFailureMillis = System.currentTimeMillis();
+        }
+        return ok;
+    }
+
+    /**
+     * 写入一批日志
+     * 本地文件中还有未补写的日志或数据库处于降级状态时直接追加到本地文件，保证日志顺序，
+     * 也不必每批都等待一次连接超时；否则写入数据库，失败时转入本地文件
+     * @return 写入数据库或本地文件成功返回true
+     */
+    private static boolean write(List<OperationLog> batch) {
+        if ((journal != null && !journal.isEmpty()) || isDegraded()) {
+            if (journal(batch)) {
+                return true;
+            }
+        }
+        return flush(batch) || journal(batch);
+    }
+
+    /**
+     * 按原顺序把本地文件中的日志补写到数据库
+     * 降级期间不尝试；每次最多补写若干批，避免长时间不处理队列
+     * 无法解析的记录直接跳过；同一批连续失败REPLAY_MAX_ATTEMPTS次后，若数据库可以连接，说明失败与数据本身有关，
+     * 改为逐条补写并跳过写不进去的日志，不让一条坏日志永远堵住后面的补写；数据库连不上时继续等待
+     */
+    private static void replayJournal() {
+        if (journal == null || isDegraded()) {
+            return;
+        }
+        for (int i = 0; i < REPLAY_BATCHES_PER_ROUND && !journal.isEmpty(); i++) {
+            List<OperationLog> records;
+            try {
+                records = journal.peek(BATCH_SIZE);
+            } catch (RuntimeException e) {
+                System.out.println("读取操作日志本地文件失败：" + e.getMessage());
+                return;
+            }
+            List<OperationLog> pending = new ArrayList<>(records.size());
+            for (OperationLog log : records) {
+                if (log != null) {
+                    pending.add(log);
+                }
+            }
+            int skipped = records.size() - pending.size();
+            if (!pending.isEmpty() && !flush(pending)) {
+                if (++replayFailures < REPLAY_MAX_ATTEMPTS || !isDatabaseReachable()) {
+                    return;
+                }
+                int failed = replayOneByOne(pending);
+                if (failed < 0) {
+                    return;
+                }
+                skipped += failed;
+            }
+            replayFailures = 0;
+            journal.consume(records.size());
+            REPLAYED.add(records.size() - skipped);
+            SKIPPED.add(skipped);
+        }
+    }
+
+    /**
+     * 逐条补写一批日志，写入失败的日志打印后跳过
+     * 期间数据库变得无法连接时放弃本批、不做确认，下次重新补写，已写入的日志由record_id去重
+     * @return 跳过的条数；放弃时返回-1
+     */
+    private static int replayOneByOne(List<OperationLog> logs) {
+        int skipped = 0;
+        for (OperationLog log : logs) {
+            if (logDao.insertBatch(List.of(log))) {
+                WRITTEN.increment();
+                continue;
+            }
+            if (!isDatabaseReachable()) {
+                lastFailureMillis = System.currentTimeMillis();
+                return -1;
+            }
+            System.out.println("操作日志补写反复失败，已跳过：" + log);
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * 能否从连接池借到通过校验的连接
+     */
+    private static boolean isDatabaseReachable() {
+        Connection conn = DBUtil.getConnection();
+        if (conn == null) {
+            return false;
+        }
+        DBUtil.close(conn, null);
+        return true;
+    }
+
+    /**
+     * 最近一次写入失败或过慢后的重试间隔内视为降级
+     */
+    private static boolean isDegraded() {
+        return System.currentTimeMillis() - lastFailureMillis < RETRY_INTERVAL_MILLIS;
+    }
+
+    private static boolean journal(List<OperationLog> logs) {
+        if (journal == null || !journal.append(logs)) {
+            System.out.println("操作日志写入本地文件失败（文件不可用或已满），丢失" + logs.size() + "条日志");
+            return false;
+        }
+        JOURNALED.add(logs.size());
+        return true;
+    }
+
+    /**
+     * 解析队列满时的处理策略，无法识别时使用BLOCK
+     * 在静态初始化中调用，配置写错不能让类初始化失败，否则所有记录日志的操作都会出错
+     */
+    private static OverflowPolicy parseOverflow(String value) {
+        try {
+            return OverflowPolicy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("无法识别的audit.overflow配置：" + value + "，使用BLOCK");
+            return OverflowPolicy.BLOCK;
+        }
+    }
+
+    /**
+     * 打开本地日志文件
+     * 文件被同一工作目录下的其他实例占用时依次尝试 文件名.1、文件名.2 …，
+     * 实例重启后重新取得其中一个空闲文件并补写其中未确认的日志；全部被占用时不使用本地文件
+     */
+    private static OperationLogJournal openJournal() {
+        String file = DBUtil.getProperty("audit.journalFile", "audit-journal.dat");
+        int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(4096L,
+            DBUtil.getLongProperty("audit.journalSize", 64L * 1024 * 1024)));
+        for (int slot = 0; slot < JOURNAL_SLOTS; slot++) {
+            String path = slot == 0 ? file : file + "." + slot;
+            try {
+                return new OperationLogJournal(Paths.get(path), capacity);
+            } catch (MappedJournal.LockedException e) {
+                System.out.println(e.getMessage() + "，尝试下一个文件");
+            } catch (IOException | RuntimeException e) {
+                System.out.println("打开操作日志本地文件失败，数据库不可用时日志将丢失：" + e.getMessage());
+                return null;
+            }
+        }
+        System.out.println("操作日志本地文件均被其他实例占用，不使用本地文件，数据库不可用时日志将丢失");
+        return null;
+    }
+}
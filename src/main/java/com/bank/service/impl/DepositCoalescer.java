@@ -0,0 +1,219 @@
+package com.bank.service.impl;
+
+import com.bank.dao.UserDao;
+import com.bank.dao.impl.UserDaoImpl;
+import com.bank.entity.AccountBalance;
+import com.bank.entity.TransactionType;
+import com.bank.util.DBUtil;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 存款合并器
+ * 同一账号在合并窗口内的多笔存款合并为一条UPDATE和一次提交，每笔存款仍各自写一条资金流水，
+ * 并分别完成各调用方的Future；窗口到期或攒满一批时立即写入，以有限的延迟换取热点账户的入账吞吐量
+ * 默认关闭，配置项：deposit.coalesce.enabled（默认false）、deposit.coalesce.windowMicros（默认2000微秒）、
+ * deposit.coalesce.maxBatch（默认64笔）、deposit.coalesce.threads（默认4个写入线程）
+ */
+public final class DepositCoalescer {
+    /** 是否启用合并 */
+    private static final boolean ENABLED = Boolean.parseBoolean(
+        DBUtil.getProperty("deposit.coalesce.enabled", "false"));
+    /** 合并窗口（微秒），从一个账号的第一笔存款到达开始计时 */
+    private static final long WINDOW_MICROS = Math.max(0L, DBUtil.getLongProperty("deposit.coalesce.windowMicros", 2000L));
+    /** 每批最多合并的笔数，攒满后不等窗口到期立即写入 */
+    private static final int MAX_BATCH = Math.max(1, DBUtil.getIntProperty("deposit.coalesce.maxBatch", 64));
+    /** 计时和写入线程数 */
+    private static final int THREADS = Math.max(1, DBUtil.getIntProperty("deposit.coalesce.threads", 4));
+
+    private static final UserDao userDao = new UserDaoImpl();
+    /** 账号 -> 正在收集的批次 */
+    private static final Map<String, Batch> open = new ConcurrentHashMap<>();
+    private static final ScheduledThreadPoolExecutor executor = createExecutor();
+
+    /** 写入的批次数（含分片事务引擎的合并写入） */
+    private static final LongAdder BATCHES = new LongAdder();
+    /** 经合并写入的存款笔数（含分片事务引擎的合并写入） */
+    private static final LongAdder DEPOSITS = new LongAdder();
+
+    private DepositCoalescer() {
+    }
+
+    /**
+     * 是否启用了存款合并
+     * @return true-已启用
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * 提交一笔存款
+     * 加入该账号正在收集的批次，批次写入后完成返回的Future
+     * @param account 账号
+     * @param amount 存款金额，必须大于0
+     * @return 成功时完成为本笔存款后的余额；账号不存在或已锁定时完成为null；
+     *         写入失败（结果未知）时异常完成
+     */
+    public static CompletableFuture<BigDecimal> submit(String account, BigDecimal amount) {
+        Pending pending = new Pending(amount);
+        while (true) {
+            Batch batch = open.get(account);
+            if (batch == null) {
+                Batch created = new Batch(account);
+                batch = open.putIfAbsent(account, created);
+                if (batch == null) {
+                    batch = created;
+                    Batch scheduled = created;
+                    executor.schedule(() -> flush(scheduled), WINDOW_MICROS, TimeUnit.MICROSECONDS);
+                }
+            }
+            boolean full;
+            synchronized (batch) {
+                if (batch.closed) {
+                    // 批次刚被关闭，移除后重新开一批
+                    open.remove(account, batch);
+                    continue;
+                }
+                batch.items.add(pending);
+                full = batch.items.size() >= MAX_BATCH;
+            }
+            if (full) {
+                // 后续存款开新批次，不再挤进这一批
+                open.remove(account, batch);
+                Batch toFlush = batch;
+                executor.execute(() -> flush(toFlush));
+            }
+            return pending.future;
+        }
+    }
+
+    /**
+     * 获取写入的批次数
+     * @return 批次数
+     */
+    public static long getBatchCount() {
+        return BATCHES.sum();
+    }
+
+    /**
+     * 获取经合并写入的存款笔数
+     * @return 存款笔数
+     */
+    public static long getDepositCount() {
+        return DEPOSITS.sum();
+    }
+
+    /**
+     * 关闭批次并写入数据库
+     * 窗口到期和攒满一批都会触发，只有先到的一次真正写入
+     */
+    private static void flush(Batch batch) {
+        List<Pending> items;
+        synchronized (batch) {
+            if (batch.closed) {
+                return;
+            }
+            batch.closed = true;
+            items = batch.items;
+        }
+        open.remove(batch.account, batch);
+
+        List<BigDecimal> amounts = new ArrayList<>(items.size());
+        for (Pending pending : items) {
+            amounts.add(pending.amount);
+        }
+        List<BigDecimal> balances;
+        try {
+            balances = writeBatch(batch.account, amounts);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            for (Pending pending : items) {
+                pending.future.completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).future.complete(balances == null ? null : balances.get(i));
+        }
+    }
+
+    /**
+     * 把同一账号的多笔存款合并写入，并同步账户缓存
+     * 合并器和分片事务引擎共用
+     * @param account 账号
+     * @param amounts 各笔存款金额，按到达顺序排列
+     * @return 每笔存款后的余额；账号不存在或已锁定返回null
+     * @throws IllegalStateException 数据库执行失败，是否已入账未知
+     */
+    static List<BigDecimal> writeBatch(String account, List<BigDecimal> amounts) {
+        List<AccountBalance> written;
+        try {
+            written = userDao.creditAll(account, amounts, TransactionType.DEPOSIT);
+        } catch (RuntimeException e) {
+            // 写入结果未知，缓存失效后交给调用方，各笔存款按结果未知完成
+            AccountCache.invalidate(account);
+            throw e;
+        } finally {
+            BATCHES.increment();
+            DEPOSITS.add(amounts.size());
+        }
+
+        if (written == null) {
+            AccountCache.invalidate(account);
+            return null;
+        }
+        AccountBalance last = written.get(written.size() - 1);
+        AccountCache.updateBalance(account, last.getBalance(), last.getVersion());
+        List<BigDecimal> balances = new ArrayList<>(written.size());
+        for (AccountBalance balance : written) {
+            balances.add(balance.getBalance());
+        }
+        return balances;
+    }
+
+    private static ScheduledThreadPoolExecutor createExecutor() {
+        AtomicInteger seq = new AtomicInteger();
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(THREADS, r -> {
+            Thread t = new Thread(r, "deposit-coalescer-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        return pool;
+    }
+
+    /**
+     * 一个账号在一个合并窗口内收集的存款
+     */
+    private static final class Batch {
+        private final String account;
+        private final List<Pending> items = new ArrayList<>();
+        /** 已关闭的批次不再接收存款 */
+        private boolean closed;
+
+        private Batch(String account) {
+            this.account = account;
+        }
+    }
+
+    /**
+     * 等待写入的一笔存款
+     */
+    private static final class Pending {
+        private final BigDecimal amount;
+        private final CompletableFuture<BigDecimal> future = new CompletableFuture<>();
+
+        private Pending(BigDecimal amount) {
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.bank.service.impl;
+
+import com.bank.dao.StripedBalanceDao;
+import com.bank.dao.impl.StripedBalanceDaoImpl;
+import com.bank.util.DBUtil;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点账户登记表
+ * 记录启用了余额条带的账户，入账时按轮询选择子行，使同一账户上的并发入账分散到不同的行锁上，
+ * 入账吞吐量随子行数增长；后台线程定期把子行余额归并回主行，扣款前余额不足时也会先归并一次
+ * 首次使用时从bank_balance_stripe加载已启用的账户，之后每隔stripe.reloadInterval重新加载一次，
+ * 首次加载失败或其他客户端新启用的条带账户在下一次加载后生效；服务对象在各窗口中分别创建，登记表为进程内共享的静态实例
+ * 子行序号列为TINYINT，子行数最多MAX_STRIPES（128）个，超出时按上限创建
+ * 配置项：stripe.count（默认8）、stripe.consolidateInterval（默认1000毫秒）、stripe.reloadInterval（默认10000毫秒）
+ */
+public final class HotAccountRegistry {
+    /** 子行数上限，bank_balance_stripe.stripe为TINYINT，序号最大127 */
+    public static final int MAX_STRIPES = 128;
+    /** 启用条带时默认的子行数 */
+    private static final int DEFAULT_STRIPES = Math.min(MAX_STRIPES,
+        Math.max(2, DBUtil.getIntProperty("stripe.count", 8)));
+    /** 后台归并的间隔（毫秒） */
+    private static final long CONSOLIDATE_INTERVAL_MILLIS = Math.max(100L,
+        DBUtil.getLongProperty("stripe.consolidateInterval", 1000L));
+    /** 重新加载条带账户的间隔（毫秒） */
+    private static final long RELOAD_INTERVAL_MILLIS = Math.max(1000L,
+        DBUtil.getLongProperty("stripe.reloadInterval", 10000L));
+
+    private static final StripedBalanceDao stripedDao = new StripedBalanceDaoImpl();
+    /** 账号 -> 条带信息 */
+    private static final Map<String, Stripes> accounts = new ConcurrentHashMap<>();
+    /** 是否已尝试首次加载；加载失败不影响，由后台线程定期重试 */
+    private static volatile boolean started;
+    private static ScheduledExecutorService consolidator;
+
+    /** 条带入账次数 */
+    private static final LongAdder STRIPED_CREDITS = new LongAdder();
+    /** 实际移动了余额的归并次数 */
+    private static final LongAdder CONSOLIDATIONS = new LongAdder();
+    /** 加载条带账户失败的次数 */
+    private static final LongAdder FAILED_RELOADS = new LongAdder();
+
+    private HotAccountRegistry() {
+    }
+
+    /**
+     * 判断账户是否启用了条带
+     * @param account 账号
+     * @return true-已启用
+     */
+    public static boolean isStriped(String account) {
+        ensureLoaded();
+        return accounts.containsKey(account);
+    }
+
+    /**
+     * 为账户启用条带
+     * @param account 账号
+     * @param stripes 子行数，不大于0时使用默认值，超过MAX_STRIPES时按MAX_STRIPES创建
+     * @return 成功返回true
+     */
+    public static boolean enable(String account, int stripes) {
+        ensureLoaded();
+        int count = stripes > 0 ? Math.min(stripes, MAX_STRIPES) : DEFAULT_STRIPES;
+        if (!stripedDao.enableStriping(account, count)) {
+            return false;
+        }
+        accounts.merge(account, new Stripes(count), (old, added) -> old.count >= count ? old : added);
+        startConsolidator();
+        return true;
+    }
+
+    /**
+     * 向条带账户入账
+     * 按轮询选择子行；账户未启用条带时返回false，调用方应改走普通入账
+     * @param account 账号
+     * @param amount 入账金额
+     * @return 成功返回true
+     * @throws IllegalStateException 数据库执行失败，是否已入账未知
+     */
+    public static boolean credit(String account, BigDecimal amount) {
+        ensureLoaded();
+        Stripes stripes = accounts.get(account);
+        if (stripes == null) {
+            return false;
+        }
+        int stripe = Math.floorMod(stripes.next.getAndIncrement(), stripes.count);
+        if (!stripedDao.creditStripe(account, stripe, amount)) {
+            return false;
+        }
+        STRIPED_CREDITS.increment();
+        return true;
+    }
+
+    /**
+     * 把账户的子行余额归并回主行
+     * 扣款因主行余额不足失败时调用，归并后可重试一次；登记表尚未加载到的条带账户同样有效
+     * @param account 账号
+     * @return 归并了余额返回true
+     */
+    public static boolean consolidate(String account) {
+        BigDecimal moved = stripedDao.consolidate(account);
+        if (moved == null || moved.signum() == 0) {
+            return false;
+        }
+        CONSOLIDATIONS.increment();
+        // 总余额不变，但主行版本号已变化
+        AccountCache.invalidate(account);
+        return true;
+    }
+
+    /**
+     * 获取条带入账次数
+     * @return 条带入账次数
+     */
+    public static long getStripedCreditCount() {
+        return STRIPED_CREDITS.sum();
+    }
+
+    /**
+     * 获取实际移动了余额的归并次数
+     * @return 归并次数
+     */
+    public static long getConsolidationCount() {
+        return CONSOLIDATIONS.sum();
+    }
+
+    /**
+     * 获取加载条带账户失败的次数
+     * @return 失败次数
+     */
+    public static long getFailedReloadCount() {
+        return FAILED_RELOADS.sum();
+    }
+
+    /**
+     * 首次使用时同步加载一次并启动后台线程；失败时不阻塞调用方，由后台线程定期重试
+     */
+    private static void ensureLoaded() {
+        if (started) {
+            return;
+        }
+        synchronized (HotAccountRegistry.class) {
+            if (started) {
+                return;
+            }
+            reload();
+            started = true;
+            startConsolidator();
+        }
+    }
+
+    /**
+     * 从bank_balance_stripe加载条带账户，合并到登记表
+     * 子行只增不删，已登记的账户只会增加子行数
+     */
+    private static void reload() {
+        Map<String, Integer> striped = stripedDao.findStripedAccounts();
+        if (striped == null) {
+            FAILED_RELOADS.increment();
+            return;
+        }
+        for (Map.Entry<String, Integer> entry : striped.entrySet()) {
+            int count = entry.getValue();
+            accounts.merge(entry.getKey(), new Stripes(count), (old, added) -> old.count >= count ? old : added);
+        }
+    }
+
+    private static synchronized void startConsolidator() {
+        if (consolidator != null) {
+            return;
+        }
+        consolidator = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stripe-consolidator");
+            t.setDaemon(true);
+            return t;
+        });
+        consolidator.scheduleWithFixedDelay(() -> {
+            for (String account : accounts.keySet()) {
+                try {
+                    consolidate(account);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, CONSOLIDATE_INTERVAL_MILLIS, CONSOLIDATE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        consolidator.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, RELOAD_INTERVAL_MILLIS, RELOAD_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 账户的条带信息
+     */
+    private static final class Stripes {
+        /** 子行数 */
+        private final int count;
+        /** 轮询计数 */
+        private final AtomicInteger next = new AtomicInteger();
+
+        private Stripes(int count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.bank.service.impl;
+
+import com.bank.dao.IdempotencyDao;
+import com.bank.dao.impl.IdempotencyDaoImpl;
+import com.bank.entity.IdempotencyRecord;
+import com.bank.util.DBUtil;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 幂等请求守卫
+ * 带请求键的资金操作先经过这里：同一个键的重复提交（连点、超时后重试）直接返回第一次的结果，不再改动余额
+ * 两级去重：
+ * 1. 进程内按LRU保留最近完成的请求结果，命中时不访问数据库
+ * 2. bank_idempotency_key表按主键唯一性占用键，跨进程、跨重启有效
+ * 只有成功的结果会被保存；只有操作被明确拒绝（账号不存在、已锁定、余额不足等，确定没有改动任何余额）
+ * 时才释放键，允许用同一个键重试
+ * 操作抛出异常或返回系统错误时结果未知（例如提交语句超时，服务端可能已经提交），键停留在"处理中"；
+ * 操作已提交但结果还没写回时进程崩溃也是如此。此后的重试按处理中拒绝，宁可不执行也不重复执行
+ * 去重窗口为idempotency.retentionHours：后台线程每隔idempotency.purgeInterval删除占用时间超过保留期的键，
+ * 进程内缓存中超过保留期的结果同样视为过期；同一个键超过保留期后再提交会作为新请求执行
+ * 配置项：idempotency.cache.maxSize（默认10000）、idempotency.retentionHours（默认24）、
+ * idempotency.purgeInterval（默认600000毫秒）
+ */
+public final class IdempotencyGuard {
+    /** 进程内最多保留的请求结果数 */
+    private static final int MAX_SIZE = Math.max(1, DBUtil.getIntProperty("idempotency.cache.maxSize", 10000));
+    /** 请求键的保留期（毫秒），即去重窗口 */
+    private static final long RETENTION_MILLIS = TimeUnit.HOURS.toMillis(
+        Math.max(1L, DBUtil.getLongProperty("idempotency.retentionHours", 24L)));
+    /** 删除过期请求键的间隔（毫秒） */
+    private static final long PURGE_INTERVAL_MILLIS = Math.max(1000L,
+        DBUtil.getLongProperty("idempotency.purgeInterval", 600000L));
+    /** 每条DELETE最多删除的行数 */
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private static final IdempotencyDao idempotencyDao = new IdempotencyDaoImpl();
+    /** 请求键 -> 已完成的记录，accessOrder=true实现LRU */
+    private static final Map<String, Remembered> recent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Remembered> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+    private static ScheduledExecutorService purger;
+
+    /** 进程内命中次数 */
+    private static final LongAdder MEMORY_HITS = new LongAdder();
+    /** 数据库中命中已完成结果的次数 */
+    private static final LongAdder STORE_HITS = new LongAdder();
+    /** 因同一个键正在处理或被其他请求占用而拒绝的次数 */
+    private static final LongAdder REJECTED = new LongAdder();
+    /** 删除的过期请求键数 */
+    private static final LongAdder PURGED = new LongAdder();
+
+    private IdempotencyGuard() {
+    }
+
+    /**
+     * 启动后台清理，定期删除超过保留期的请求键
+     * 重复调用无效果
+     */
+    public static synchronized void start() {
+        if (purger != null) {
+            return;
+        }
+        purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "idempotency-purger");
+            t.setDaemon(true);
+            return t;
+        });
+        purger.scheduleWithFixedDelay(() -> {
+            try {
+                purge();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, PURGE_INTERVAL_MILLIS, PURGE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 分批删除超过保留期的请求键，直到没有过期的键或删除失败
+     */
+    private static void purge() {
+        long retentionSeconds = TimeUnit.MILLISECONDS.toSeconds(RETENTION_MILLIS);
+        int deleted;
+        do {
+            deleted = idempotencyDao.purgeExpired(retentionSeconds, PURGE_BATCH_SIZE);
+            if (deleted > 0) {
+                PURGED.add(deleted);
+            }
+        } while (deleted == PURGE_BATCH_SIZE);
+    }
+
+    /**
+     * 操作结果的编解码方式
+     * @param <T> 结果类型
+     */
+    public interface Codec<T> {
+        /**
+         * 判断结果是否成功，只有成功的结果才保存
+         */
+        boolean isSuccess(T result);
+
+        /**
+         * 判断失败的结果是否为明确的拒绝（确定没有改动任何余额），只有明确拒绝时才释放请求键
+         */
+        boolean isRejection(T result);
+
+        /**
+         * 把结果序列化为字符串
+         */
+        String encode(T result);
+
+        /**
+         * 从字符串还原结果
+         */
+        T decode(String value);
+
+        /**
+         * 请求键正在处理、被其他请求占用或无法访问键表时返回的结果
+         * 结果类型无法表达"结果未知"时可以抛出异常
+         */
+        T rejected();
+    }
+
+    /**
+     * 以请求键保护一次操作
+     * @param requestKey 请求键
+     * @param operation 操作描述（操作名称及参数），重复请求的描述必须一致
+     * @param account 发起操作的账号
+     * @param codec 结果的编解码方式
+     * @param action 实际执行的操作
+     * @param <T> 结果类型
+     * @return 第一次执行的结果，或重复请求时保存的结果
+     */
+    public static <T> T execute(String requestKey, String operation, String account, Codec<T> codec,
+                                Supplier<T> action) {
+        IdempotencyRecord cached = null;
+        synchronized (recent) {
+            Remembered remembered = recent.get(requestKey);
+            if (remembered != null && System.currentTimeMillis() - remembered.time > RETENTION_MILLIS) {
+                recent.remove(requestKey);
+            } else if (remembered != null) {
+                cached = remembered.record;
+            }
+        }
+        if (cached != null) {
+            MEMORY_HITS.increment();
+            return replay(cached, operation, account, codec);
+        }
+
+        if (!idempotencyDao.claim(requestKey, operation, account)) {
+            IdempotencyRecord stored = idempotencyDao.findByKey(requestKey);
+            if (stored == null || !stored.isCompleted()) {
+                // 键表不可用，或同一个键的第一次请求还在处理中
+                REJECTED.increment();
+                return codec.rejected();
+            }
+            STORE_HITS.increment();
+            remember(stored);
+            return replay(stored, operation, account, codec);
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            // 操作可能已经提交，保留键，同一个键的重试不会再执行一次
+            System.out.println("请求执行结果未知，请求键将停留在处理中：" + requestKey);
+            throw e;
+        }
+        if (!codec.isSuccess(result)) {
+            if (codec.isRejection(result)) {
+                idempotencyDao.release(requestKey);
+            } else {
+                System.out.println("请求执行结果未知，请求键将停留在处理中：" + requestKey);
+            }
+            return result;
+        }
+        String encoded = codec.encode(result);
+        if (!idempotencyDao.complete(requestKey, encoded)) {
+            System.out.println("保存幂等请求结果失败，该请求键将停留在处理中：" + requestKey);
+        }
+        remember(new IdempotencyRecord(requestKey, operation, account, true, encoded));
+        return result;
+    }
+
+    /**
+     * 获取进程内命中次数
+     * @return 命中次数
+     */
+    public static long getMemoryHitCount() {
+        return MEMORY_HITS.sum();
+    }
+
+    /**
+     * 获取数据库中命中已完成结果的次数
+     * @return 命中次数
+     */
+    public static long getStoreHitCount() {
+        return STORE_HITS.sum();
+    }
+
+    /**
+     * 获取被拒绝的重复请求次数
+     * @return 拒绝次数
+     */
+    public static long getRejectedCount() {
+        return REJECTED.sum();
+    }
+
+    /**
+     * 获取删除的过期请求键数
+     * @return 删除数
+     */
+    public static long getPurgedCount() {
+        return PURGED.sum();
+    }
+
+    private static <T> T replay(IdempotencyRecord record, String operation, String account, Codec<T> codec) {
+        if (!record.matches(operation, account)) {
+            System.out.println("请求键已被其他请求使用：" + record);
+            REJECTED.increment();
+            return codec.rejected();
+        }
+        return codec.decode(record.getResult());
+    }
+
+    private static void remember(IdempotencyRecord record) {
+        synchronized (recent) {
+            recent.put(record.getRequestKey(), new Remembered(record, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * 进程内缓存的记录及放入时间
+     */
+    private static final class Remembered {
+        private final IdempotencyRecord record;
+        private final long time;
+
+        private Remembered(IdempotencyRecord record, long time) {
+            this.record = record;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.bank.service.impl;
+
+import com.bank.dao.LogPartitionDao;
+import com.bank.dao.impl.LogPartitionDaoImpl;
+import com.bank.util.DBUtil;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 操作日志分区管理器
+ * bank_operation_log按月分区（pYYYYMM），本类在启动时和之后每天执行一次维护：
+ * 1. 提前建好当月及之后log.partition.monthsAhead个月的分区，日志写入总是落在已存在的月分区而不是pmax
+ * 2. 删除上界早于保留期（log.partition.retentionMonths个月）的月分区；log.partition.archive=true时
+ *    先把分区交换到归档表bank_operation_log_pYYYYMM再删除
+ * 删除整个分区只涉及元数据，不会像DELETE那样逐行删除、产生大量undo和锁
+ * 表未分区（旧库未执行迁移语句）时只打印提示，不做任何修改
+ * 配置项：log.partition.enabled（默认true）、log.partition.monthsAhead（默认3）、
+ * log.partition.retentionMonths（默认12）、log.partition.archive（默认false）
+ */
+public final class LogPartitionManager {
+    /** 是否启用分区维护 */
+    private static final boolean ENABLED = Boolean.parseBoolean(DBUtil.getProperty("log.partition.enabled", "true"));
+    /** 提前创建的月数（不含当月） */
+    private static final int MONTHS_AHEAD = Math.max(1, DBUtil.getIntProperty("log.partition.monthsAhead", 3));
+    /** 保留的月数 */
+    private static final int RETENTION_MONTHS = Math.max(1, DBUtil.getIntProperty("log.partition.retentionMonths", 12));
+    /** 删除前是否归档 */
+    private static final boolean ARCHIVE = Boolean.parseBoolean(DBUtil.getProperty("log.partition.archive", "false"));
+
+    /** 兜底分区名 */
+    private static final String MAX_PARTITION = "pmax";
+    /** 月分区名格式 */
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final LogPartitionDao partitionDao = new LogPartitionDaoImpl();
+    private static ScheduledExecutorService scheduler;
+
+    /** 创建的分区数 */
+    private static final LongAdder CREATED = new LongAdder();
+    /** 删除的分区数 */
+    private static final LongAdder DROPPED = new LongAdder();
+
+    private LogPartitionManager() {
+    }
+
+    /**
+     * 启动后台维护，立即执行一次，之后每天执行一次
+     * 重复调用无效果
+     */
+    public static synchronized void start() {
+        if (!ENABLED || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "log-partition-manager");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                maintain();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, 0, 1, TimeUnit.DAYS);
+    }
+
+    /**
+     * 执行一次分区维护
+     */
+    public static void maintain() {
+        List<String> partitions = partitionDao.findPartitionNames();
+        if (!partitions.contains(MAX_PARTITION)) {
+            System.out.println("操作日志表未按月分区或无法读取分区信息，跳过分区维护");
+            return;
+        }
+        YearMonth current = YearMonth.now();
+
+        for (int i = 0; i <= MONTHS_AHEAD; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = partitionName(month);
+            if (partitions.contains(name)) {
+                continue;
+            }
+            // 只能从pmax的下界开始依次向后拆分，比已有最大月分区更早的月份无法再插入
+            if (!isAfterLastMonth(partitions, month)) {
+                continue;
+            }
+            if (partitionDao.addPartition(name, month.plusMonths(1).atDay(1))) {
+                partitions.add(partitions.size() - 1, name);
+                CREATED.increment();
+                System.out.println("已创建操作日志分区：" + name);
+            }
+        }
+
+        LocalDate cutoff = current.minusMonths(RETENTION_MONTHS).atDay(1);
+        for (String name : partitions) {
+            YearMonth month = parseMonth(name);
+            if (month == null || month.plusMonths(1).atDay(1).isAfter(cutoff)) {
+                continue;
+            }
+            if (ARCHIVE && !partitionDao.archivePartition(name, "bank_operation_log_" + name)) {
+                System.out.println("归档操作日志分区失败，暂不删除：" + name);
+                continue;
+            }
+            if (partitionDao.dropPartition(name)) {
+                DROPPED.increment();
+                System.out.println("已删除过期的操作日志分区：" + name);
+            }
+        }
+    }
+
+    /**
+     * 获取创建的分区数
+     * @return 分区数
+     */
+    public static long getCreatedCount() {
+        return CREATED.sum();
+    }
+
+    /**
+     * 获取删除的分区数
+     * @return 分区数
+     */
+    public static long getDroppedCount() {
+        return DROPPED.sum();
+    }
+
+    /**
+     * 获取配置的保留月数
+     * 查询最近日志时向前回溯的月数不超过它
+     * @return 保留月数
+     */
+    public static int getRetentionMonths() {
+        return RETENTION_MONTHS;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return month.format(NAME_FORMAT);
+    }
+
+    /**
+     * 解析月分区名
+     * @return 月份，不是pYYYYMM格式时返回null
+     */
+    private static YearMonth parseMonth(String name) {
+        if (name.length() != 7 || name.charAt(0) != 'p') {
+            return null;
+        }
+        try {
+            return YearMonth.of(Integer.parseInt(name.substring(1, 5)), Integer.parseInt(name.substring(5, 7)));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isAfterLastMonth(List<String> partitions, YearMonth month) {
+        for (int i = partitions.size() - 1; i >= 0; i--) {
+            YearMonth last = parseMonth(partitions.get(i));
+            if (last != null) {
+                return month.isAfter(last);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,573 @@
+package com.bank.service.impl;
+
+import com.bank.dao.OperationLogDao;
+import com.bank.dao.impl.OperationLogDaoImpl;
+import com.bank.entity.OperationLog;
+import com.bank.util.BigramTokenizer;
+import com.bank.util.DBUtil;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 操作日志全文索引
+ * 在内存中为最近的操作日志建立倒排索引，按operation_desc和error_message搜索，不再对整张日志表做LIKE '%...%'扫描
+ * 1. 文本用BigramTokenizer切分：中文按相邻两字切分，字母数字整体作为一个词元
+ * 2. 每条日志按加入顺序分配一个序号，每个词元的倒排表按序号升序保存包含它的日志及出现次数
+ * 3. 只保留最近logsearch.windowSize条日志，超出时淘汰最早的一条；最早的日志总在各倒排表的表头，淘汰只需移动表头
+ * 启动时在后台线程中从数据库加载最近的日志，之后每隔logsearch.pollInterval按ID增量读取bank_operation_log中的新日志，
+ * 只索引已写入数据库的日志，其他客户端写入的日志同样可以搜索到；
+ * 读取起点比已读到的最大ID回退logsearch.pollOverlap，补上ID较小但较晚提交的日志，重复读到的按记录ID去重
+ * 查询语法：空格分隔的每个词都必须出现；双引号括起的短语必须原样连续出现；
+ * 按各词元的出现次数乘以逆文档频率累加打分，得分相同时较新的在前
+ * 配置项：logsearch.enabled（默认true）、logsearch.windowSize（默认50000）、logsearch.pollInterval（默认2000毫秒）、
+ * logsearch.pollOverlap（默认1000）
+ */
+public final class LogSearchIndex {
+    /** 是否启用全文索引 */
+    private static final boolean ENABLED = Boolean.parseBoolean(DBUtil.getProperty("logsearch.enabled", "true"));
+    /** 索引保留的最近日志条数，决定内存上限 */
+    private static final int WINDOW_SIZE = Math.max(1, DBUtil.getIntProperty("logsearch.windowSize", 50000));
+    /** 增量读取的间隔（毫秒） */
+    private static final long POLL_INTERVAL = Math.max(100L, DBUtil.getLongProperty("logsearch.pollInterval", 2000L));
+    /** 每次增量读取的最多条数，读满时立即继续读下一批 */
+    private static final int POLL_BATCH_SIZE = 2000;
+    /** 增量读取起点回退的ID个数，不超过批大小和窗口的一半，保证每批都有新日志且回退部分不会已被淘汰 */
+    private static final int POLL_OVERLAP = (int) Math.max(0L, Math.min(
+        DBUtil.getLongProperty("logsearch.pollOverlap", 1000L), Math.min(POLL_BATCH_SIZE, WINDOW_SIZE) / 2));
+
+    private static final OperationLogDao logDao = new OperationLogDaoImpl();
+    private static final AtomicBoolean started = new AtomicBoolean();
+    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 环形数组，序号为seq的日志保存在seq % WINDOW_SIZE处 */
+    private static final Doc[] docs = new Doc[ENABLED ? WINDOW_SIZE : 0];
+    /** 词元 -> 倒排表 */
+    private static final Map<String, Postings> postings = new HashMap<>();
+    /** 记录ID -> 序号，用于去重和按记录ID取回日志 */
+    private static final Map<String, Long> seqByRecordId = new HashMap<>();
+    /** 下一条日志的序号 */
+    private static long nextSeq;
+    /** 已读到的最大日志ID，只由后台线程访问 */
+    private static long lastSeenId;
+
+    /** 查询次数 */
+    private static final LongAdder SEARCHES = new LongAdder();
+    /** 加入索引的日志条数 */
+    private static final LongAdder INDEXED = new LongAdder();
+    /** 因超出窗口被淘汰的日志条数 */
+    private static final LongAdder EVICTED = new LongAdder();
+    /** 增量读取失败的次数 */
+    private static final LongAdder FAILED_POLLS = new LongAdder();
+
+    private LogSearchIndex() {
+    }
+
+    /**
+     * 在后台线程中加载最近的日志，之后定期增量读取新日志
+     * 只会执行一次，重复调用直接返回；未调用时索引为空
+     */
+    public static void buildAsync() {
+        if (!ENABLED || !started.compareAndSet(false, true)) {
+            return;
+        }
+        Thread t = new Thread(LogSearchIndex::build, "log-search-builder");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static void build() {
+        long start = System.currentTimeMillis();
+        List<Doc> history = new ArrayList<>();
+        try {
+            List<OperationLog> logs = logDao.findRecent(WINDOW_SIZE);
+            for (int i = logs.size() - 1; i >= 0; i--) {
+                OperationLog log = logs.get(i);
+                if (log.getId() != null) {
+                    lastSeenId = Math.max(lastSeenId, log.getId());
+                }
+                Doc doc = Doc.of(log);
+                if (doc != null) {
+                    history.add(doc);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println("操作日志索引加载历史日志失败，从增量读取开始索引");
+            e.printStackTrace();
+        }
+
+        int termCount;
+        lock.writeLock().lock();
+        try {
+            for (Doc doc : history) {
+                index(doc);
+            }
+            termCount = postings.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("操作日志索引构建完成：" + history.size() + "条历史日志，" + termCount + "个词元，耗时"
+            + (System.currentTimeMillis() - start) + "ms");
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "log-search-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                FAILED_POLLS.increment();
+                e.printStackTrace();
+            }
+        }, POLL_INTERVAL, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 读取上次读到的最大ID之后写入的日志并加入索引
+     * 查询失败时保持原起点，下次重试
+     */
+    private static void poll() {
+        while (true) {
+            List<OperationLog> logs = logDao.findAfterId(Math.max(0L, lastSeenId - POLL_OVERLAP), POLL_BATCH_SIZE);
+            if (logs == null) {
+                FAILED_POLLS.increment();
+                return;
+            }
+            // 分词在锁外完成，锁内只更新倒排表
+            List<Doc> batch = new ArrayList<>(logs.size());
+            long maxId = lastSeenId;
+            for (OperationLog log : logs) {
+                maxId = Math.max(maxId, log.getId());
+                Doc doc = Doc.of(log);
+                if (doc != null) {
+                    batch.add(doc);
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                for (Doc doc : batch) {
+                    index(doc);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            lastSeenId = maxId;
+            if (logs.size() < POLL_BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 搜索日志
+     * @param query 查询语句：空格分隔的词全部匹配，双引号括起的短语按原文连续匹配，不区分大小写
+     * @param adminId 管理员ID，null-不限
+     * @param operationType 操作类型，null-不限
+     * @param from 起始时间（含），null-不限
+     * @param to 结束时间（不含），null-不限
+     * @param limit 最多返回的条数
+     * @return 匹配日志的记录ID，按相关度从高到低排列；查询为空或未启用时返回空列表
+     */
+    public static List<String> search(String query, Integer adminId, String operationType,
+                                      LocalDateTime from, LocalDateTime to, int limit) {
+        SEARCHES.increment();
+        List<Clause> clauses = parse(query);
+        if (!ENABLED || clauses.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        // 单个汉字不在倒排表中（只索引两字词元），这类词只能在候选日志中按原文比对
+        Set<String> terms = new LinkedHashSet<>();
+        for (Clause clause : clauses) {
+            for (String token : clause.tokens) {
+                if (!isSingleCjk(token)) {
+                    terms.add(token);
+                }
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            long liveCount = Math.min(nextSeq, WINDOW_SIZE);
+            List<Postings> lists = new ArrayList<>(terms.size());
+            double[] idf = new double[terms.size()];
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                idf[lists.size()] = Math.log(1.0 + (double) liveCount / list.size());
+                lists.add(list);
+            }
+
+            List<Hit> hits = new ArrayList<>();
+            if (lists.isEmpty()) {
+                for (long seq = nextSeq - liveCount; seq < nextSeq; seq++) {
+                    Doc doc = docs[slot(seq)];
+                    if (matches(doc, clauses, adminId, operationType, from, to)) {
+                        hits.add(new Hit(doc, 1.0));
+                    }
+                }
+            } else {
+                collectHits(lists, idf, clauses, adminId, operationType, from, to, hits);
+            }
+
+            hits.sort((a, b) -> a.score != b.score
+                ? Double.compare(b.score, a.score)
+                : Long.compare(b.doc.seq, a.doc.seq));
+            List<String> recordIds = new ArrayList<>(Math.min(limit, hits.size()));
+            for (int i = 0; i < hits.size() && i < limit; i++) {
+                recordIds.add(hits.get(i).doc.log.getRecordId());
+            }
+            return recordIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按记录ID取回索引中的日志
+     * @param recordId 记录ID
+     * @return 日志对象，已被淘汰或不存在时返回null
+     */
+    public static OperationLog get(String recordId) {
+        lock.readLock().lock();
+        try {
+            Long seq = seqByRecordId.get(recordId);
+            return seq == null ? null : docs[slot(seq)].log;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取索引中的日志条数
+     * @return 条数
+     */
+    public static int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return (int) Math.min(nextSeq, docs.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取索引中的词元个数
+     * @return 词元个数
+     */
+    public static int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取查询次数
+     * @return 查询次数
+     */
+    public static long getSearchCount() {
+        return SEARCHES.sum();
+    }
+
+    /**
+     * 获取加入索引的日志条数
+     * @return 条数
+     */
+    public static long getIndexedCount() {
+        return INDEXED.sum();
+    }
+
+    /**
+     * 获取因超出窗口被淘汰的日志条数
+     * @return 条数
+     */
+    public static long getEvictedCount() {
+        return EVICTED.sum();
+    }
+
+    /**
+     * 获取增量读取失败的次数
+     * @return 次数
+     */
+    public static long getFailedPollCount() {
+        return FAILED_POLLS.sum();
+    }
+
+    /**
+     * 把日志加入倒排表，窗口已满时先淘汰最早的一条
+     * 调用方持有写锁
+     */
+    private static void index(Doc doc) {
+        if (seqByRecordId.containsKey(doc.log.getRecordId())) {
+            return;
+        }
+        if (nextSeq >= WINDOW_SIZE) {
+            evict(docs[slot(nextSeq)]);
+        }
+        doc.seq = nextSeq++;
+        docs[slot(doc.seq)] = doc;
+        seqByRecordId.put(doc.log.getRecordId(), doc.seq);
+        for (int i = 0; i < doc.terms.length; i++) {
+            postings.computeIfAbsent(doc.terms[i], k -> new Postings()).append(doc.seq, doc.counts[i]);
+        }
+        INDEXED.increment();
+    }
+
+    private static void evict(Doc doc) {
+        for (String term : doc.terms) {
+            Postings list = postings.get(term);
+            list.removeHead();
+            if (list.size() == 0) {
+                postings.remove(term);
+            }
+        }
+        seqByRecordId.remove(doc.log.getRecordId());
+        EVICTED.increment();
+    }
+
+    /**
+     * 以最短的倒排表为基准，在其余倒排表中二分查找，求所有词元的交集并打分
+     * 调用方持有读锁
+     */
+    private static void collectHits(List<Postings> lists, double[] idf, List<Clause> clauses, Integer adminId,
+                                    String operationType, LocalDateTime from, LocalDateTime to, List<Hit> hits) {
+        int shortest = 0;
+        for (int i = 1; i < lists.size(); i++) {
+            if (lists.get(i).size() < lists.get(shortest).size()) {
+                shortest = i;
+            }
+        }
+        Postings base = lists.get(shortest);
+        for (int p = base.head; p < base.end; p++) {
+            long seq = base.seqs[p];
+            double score = 0;
+            boolean all = true;
+            for (int i = 0; i < lists.size() && all; i++) {
+                Postings list = lists.get(i);
+                int found = i == shortest ? p : list.find(seq);
+                if (found < 0) {
+                    all = false;
+                } else {
+                    score += list.counts[found] * idf[i];
+                }
+            }
+            Doc doc = docs[slot(seq)];
+            if (all && matches(doc, clauses, adminId, operationType, from, to)) {
+                hits.add(new Hit(doc, score));
+            }
+        }
+    }
+
+    /**
+     * 检查过滤条件，并按原文确认每个词和短语确实连续出现（两字词元的交集只是必要条件）
+     */
+    private static boolean matches(Doc doc, List<Clause> clauses, Integer adminId, String operationType,
+                                   LocalDateTime from, LocalDateTime to) {
+        OperationLog log = doc.log;
+        if (adminId != null && !adminId.equals(log.getAdminId())) {
+            return false;
+        }
+        if (operationType != null && !operationType.equals(log.getOperationType())) {
+            return false;
+        }
+        LocalDateTime time = log.getCreateTime();
+        if (from != null && (time == null || time.isBefore(from))) {
+            return false;
+        }
+        if (to != null && (time == null || !time.isBefore(to))) {
+            return false;
+        }
+        for (Clause clause : clauses) {
+            if (!doc.text.contains(clause.text)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解析查询语句
+     * 双引号内为一个短语，其余按空白拆成词；不含任何词元的部分忽略
+     */
+    private static List<Clause> parse(String query) {
+        List<Clause> clauses = new ArrayList<>();
+        if (query == null) {
+            return clauses;
+        }
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i % 2 == 1) {
+                addClause(clauses, parts[i].trim());
+            } else {
+                for (String word : parts[i].trim().split("\\s+")) {
+                    addClause(clauses, word);
+                }
+            }
+        }
+        return clauses;
+    }
+
+    private static void addClause(List<Clause> clauses, String text) {
+        List<String> tokens = BigramTokenizer.tokenize(text);
+        if (!tokens.isEmpty()) {
+            clauses.add(new Clause(BigramTokenizer.normalize(text), tokens));
+        }
+    }
+
+    private static boolean isSingleCjk(String token) {
+        return token.codePointCount(0, token.length()) == 1 && BigramTokenizer.isCjk(token.codePointAt(0));
+    }
+
+    private static int slot(long seq) {
+        return (int) (seq % WINDOW_SIZE);
+    }
+
+    /**
+     * 索引中的一条日志
+     */
+    private static final class Doc {
+        private final OperationLog log;
+        /** 规范化后的描述和错误信息，用于按原文确认匹配 */
+        private final String text;
+        /** 去重后的词元 */
+        private final String[] terms;
+        /** 各词元的出现次数，与terms一一对应 */
+        private final int[] counts;
+        private long seq;
+
+        private Doc(OperationLog log, String text, String[] terms, int[] counts) {
+            this.log = log;
+            this.text = text;
+            this.terms = terms;
+            this.counts = counts;
+        }
+
+        /**
+         * 分词并构造
+         * @return 没有记录ID时返回null
+         */
+        private static Doc of(OperationLog log) {
+            if (log == null || log.getRecordId() == null) {
+                return null;
+            }
+            String desc = BigramTokenizer.normalize(log.getOperationDesc());
+            String error = BigramTokenizer.normalize(log.getErrorMessage());
+            // 两段之间用换行分隔，短语不会跨字段匹配
+            String text = error.isEmpty() ? desc : desc + "\n" + error;
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : BigramTokenizer.tokenize(desc)) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            for (String token : BigramTokenizer.tokenize(error)) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            String[] terms = new String[frequencies.size()];
+            int[] counts = new int[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                terms[i] = entry.getKey();
+                counts[i] = entry.getValue();
+                i++;
+            }
+            return new Doc(log, text, terms, counts);
+        }
+    }
+
+    /**
+     * 倒排表
+     * 按序号升序保存包含某个词元的日志及出现次数；淘汰时移动表头，表头空出一半以上时整体前移
+     */
+    private static final class Postings {
+        private long[] seqs = new long[4];
+        private int[] counts = new int[4];
+        /** 第一条有效记录的位置 */
+        private int head;
+        /** 最后一条有效记录之后的位置 */
+        private int end;
+
+        private void append(long seq, int count) {
+            if (end == seqs.length) {
+                if (head > 0 && head * 2 >= end) {
+                    System.arraycopy(seqs, head, seqs, 0, end - head);
+                    System.arraycopy(counts, head, counts, 0, end - head);
+                    end -= head;
+                    head = 0;
+                } else {
+                    seqs = Arrays.copyOf(seqs, seqs.length * 2);
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                }
+            }
+            seqs[end] = seq;
+            counts[end] = count;
+            end++;
+        }
+
+        private void removeHead() {
+            head++;
+            if (head == end) {
+                head = 0;
+                end = 0;
+            }
+        }
+
+        private int size() {
+            return end - head;
+        }
+
+        /**
+         * 二分查找序号
+         * @return 位置，不存在时返回负数
+         */
+        private int find(long seq) {
+            int found = Arrays.binarySearch(seqs, head, end, seq);
+            return found >= 0 ? found : -1;
+        }
+    }
+
+    /**
+     * 查询中的一个词或短语
+     */
+    private static final class Clause {
+        /** 规范化后的原文 */
+        private final String text;
+        /** 词元 */
+        private final List<String> tokens;
+
+        private Clause(String text, List<String> tokens) {
+            this.text = text;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * 命中的日志及得分
+     */
+    private static final class Hit {
+        private final Doc doc;
+        private final double score;
+
+        private Hit(Doc doc, double score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+}
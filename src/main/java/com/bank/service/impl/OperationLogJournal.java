@@ -0,0 +1,157 @@
+package com.bank.service.impl;
+
+import com.bank.entity.OperationLog;
+import com.bank.util.MappedJournal;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 操作日志本地日志文件
+ * 数据库不可用或写入缓慢时，操作日志按顺序写入内存映射的本地文件（见MappedJournal），
+ * 连接恢复后由AuditLogWriter的写入线程按原顺序分批补写到bank_operation_log
+ * 每条日志序列化为一条记录，带有record_id，补写与确认之间崩溃导致的重复写入由数据库按record_id去重
+ */
+final class OperationLogJournal {
+    /** 记录格式版本，格式变化时递增 */
+    private static final int FORMAT_VERSION = 1;
+
+    private final MappedJournal journal;
+
+    /**
+     * 打开或创建本地日志文件
+     * @param path 文件路径
+     * @param capacity 文件容量（字节）
+     * @throws IOException 打开或映射失败
+     */
+    OperationLogJournal(Path path, int capacity) throws IOException {
+        this.journal = new MappedJournal(path, capacity);
+    }
+
+    /**
+     * 按顺序追加一组日志，全部写入或全部不写
+     * @param logs 日志列表
+     * @return 成功返回true；空间不足返回false
+     */
+    boolean append(List<OperationLog> logs) {
+        List<byte[]> records = new ArrayList<>(logs.size());
+        for (OperationLog log : logs) {
+            records.add(encode(log));
+        }
+        return journal.append(records);
+    }
+
+    /**
+     * 读取尚未补写的日志，不移动消费位置
+     * 无法解析的记录（格式版本不符、内容损坏）打印出来并以null占位，仍计入条数，由调用方跳过后一并确认
+     * @param maxRecords 最多读取的条数
+     * @return 日志列表，按写入顺序排列
+     */
+    List<OperationLog> peek(int maxRecords) {
+        List<byte[]> records = journal.peek(maxRecords);
+        List<OperationLog> logs = new ArrayList<>(records.size());
+        for (byte[] record : records) {
+            try {
+                logs.add(decode(record));
+            } catch (RuntimeException e) {
+                System.out.println("操作日志本地文件中的记录无法解析，将被跳过：" + e.getMessage()
+                    + "，原始内容（Base64）：" + Base64.getEncoder().encodeToString(record));
+                logs.add(null);
+            }
+        }
+        return logs;
+    }
+
+    /**
+     * 确认前count条日志已补写
+     * @param count 已补写的条数
+     */
+    void consume(int count) {
+        journal.consume(count);
+    }
+
+    boolean isEmpty() {
+        return journal.isEmpty();
+    }
+
+    int getPendingBytes() {
+        return journal.getPendingBytes();
+    }
+
+    private static byte[] encode(OperationLog log) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FORMAT_VERSION);
+            writeString(out, log.getRecordId());
+            writeInteger(out, log.getAdminId());
+            writeString(out, log.getAdminName());
+            writeString(out, log.getOperationType());
+            writeString(out, log.getOperationDesc());
+            writeString(out, log.getTargetAccount());
+            writeString(out, log.getIpAddress());
+            writeInteger(out, log.getStatus());
+            writeString(out, log.getErrorMessage());
+            writeString(out, log.getCreateTime() == null ? null : log.getCreateTime().toString());
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static OperationLog decode(byte[] record) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            int version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("不支持的日志记录格式版本：" + version);
+            }
+            OperationLog log = new OperationLog();
+            log.setRecordId(readString(in));
+            log.setAdminId(readInteger(in));
+            log.setAdminName(readString(in));
+            log.setOperationType(readString(in));
+            log.setOperationDesc(readString(in));
+            log.setTargetAccount(readString(in));
+            log.setIpAddress(readString(in));
+            log.setStatus(readInteger(in));
+            log.setErrorMessage(readString(in));
+            String createTime = readString(in);
+            log.setCreateTime(createTime == null ? null : LocalDateTime.parse(createTime));
+            return log;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+}
@@ -3,8 +3,11 @@ package com.bank.service.impl;
 import com.bank.dao.OperationLogDao;
 import com.bank.dao.impl.OperationLogDaoImpl;
 import com.bank.entity.OperationLog;
+import com.bank.entity.Page;
 import com.bank.service.OperationLogService;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class OperationLogServiceImpl implements OperationLogService {
@@ -18,7 +21,7 @@ public class OperationLogServiceImpl implements OperationLogService {
         log.setIpAddress(getClientIP());
         log.setStatus(1);
 
-        return logDao.insert(log);
+        return AuditLogWriter.submit(log);
     }
 
     @Override
@@ -29,7 +32,7 @@ public class OperationLogServiceImpl implements OperationLogService {
         log.setIpAddress(getClientIP());
         log.markFailed(errorMsg);
 
-        return logDao.insert(log);
+        return AuditLogWriter.submit(log);
     }
 
     @Override
@@ -57,6 +60,45 @@ public class OperationLogServiceImpl implements OperationLogService {
         return logDao.findRecent(limit);
     }
 
+    @Override
+    public Page<OperationLog> getLogsPageByAdmin(Integer adminId, LocalDateTime from, LocalDateTime to,
+                                                 LocalDateTime afterCreateTime, Long afterId, int pageSize) {
+        return logDao.findPageByAdminId(adminId, from, to, afterCreateTime, afterId, pageSize);
+    }
+
+    @Override
+    public Page<OperationLog> getLogsPageByType(String operationType, LocalDateTime from, LocalDateTime to,
+                                                LocalDateTime afterCreateTime, Long afterId, int pageSize) {
+        return logDao.findPageByType(operationType, from, to, afterCreateTime, afterId, pageSize);
+    }
+
+    @Override
+    public Page<OperationLog> getLogsPageByAccount(String account, LocalDateTime from, LocalDateTime to,
+                                                   LocalDateTime afterCreateTime, Long afterId, int pageSize) {
+        return logDao.findPageByAccount(account, from, to, afterCreateTime, afterId, pageSize);
+    }
+
+    @Override
+    public Page<OperationLog> getLogsPage(LocalDateTime from, LocalDateTime to,
+                                          LocalDateTime afterCreateTime, Long afterId, int pageSize) {
+        return logDao.findPage(from, to, afterCreateTime, afterId, pageSize);
+    }
+
+    @Override
+    public List<OperationLog> searchLogs(String query, Integer adminId, String operationType,
+                                         LocalDateTime from, LocalDateTime to, int limit) {
+        List<String> recordIds = LogSearchIndex.search(query, adminId, operationType, from, to, limit);
+        List<OperationLog> logs = new ArrayList<>(recordIds.size());
+        for (String recordId : recordIds) {
+            OperationLog log = LogSearchIndex.get(recordId);
+            // 查询和取回之间日志可能已被淘汰
+            if (log != null) {
+                logs.add(log);
+            }
+        }
+        return logs;
+    }
+
     private String getClientIP() {
         return "127.0.0.1";
     }
@@ -0,0 +1,322 @@
+package com.bank.service.impl;
+
+import com.bank.util.DBUtil;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 分片事务引擎
+ * 按账号哈希把资金操作路由到固定的分片，每个分片由一个线程按到达顺序串行执行，
+ * 同一账号的写入在进程内只有一个写者，彼此之间不再争抢行锁，也不会互相死锁
+ * 分片线程每次从队列取出一批操作：同一账号连续到达的存款合并为一条UPDATE写入，
+ * 其他操作执行前先写入该账号之前的存款，保证同一账号的操作顺序不变
+ * 跨分片的转账由序号较小的分片发起：先让较大的分片停在屏障处，两个分片都暂停后再执行转账；
+ * 等待关系只会从小序号指向大序号，不会形成环
+ * 默认关闭，配置项：engine.enabled（默认false）、engine.shards（默认CPU核数）、engine.maxBatch（默认256）
+ */
+public final class ShardedTransactionEngine {
+    /** 是否启用引擎 */
+    private static final boolean ENABLED = Boolean.parseBoolean(DBUtil.getProperty("engine.enabled", "false"));
+    /** 分片数 */
+    private static final int SHARDS = Math.max(1, DBUtil.getIntProperty("engine.shards",
+        Runtime.getRuntime().availableProcessors()));
+    /** 分片线程每次最多取出的操作数 */
+    private static final int MAX_BATCH = Math.max(1, DBUtil.getIntProperty("engine.maxBatch", 256));
+
+    private static final Shard[] shards = ENABLED ? createShards() : new Shard[0];
+
+    /** 执行的操作数（存款按笔计） */
+    private static final LongAdder OPERATIONS = new LongAdder();
+    /** 跨分片转账次数 */
+    private static final LongAdder CROSS_SHARD = new LongAdder();
+
+    private ShardedTransactionEngine() {
+    }
+
+    /**
+     * 是否启用了分片事务引擎
+     * @return true-已启用
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * 提交一笔存款
+     * 与同一分片中同一账号连续到达的存款合并写入
+     * @param account 账号
+     * @param amount 存款金额，必须大于0
+     * @return 成功时完成为本笔存款后的余额；账号不存在或已锁定时完成为null；
+     *         写入失败（结果未知）时异常完成
+     */
+    public static CompletableFuture<BigDecimal> deposit(String account, BigDecimal amount) {
+        DepositTask task = new DepositTask(account, amount);
+        shardOf(account).queue.add(task);
+        return task.future;
+    }
+
+    /**
+     * 在账号所属的分片上执行一个操作
+     * @param account 账号
+     * @param operation 操作，在分片线程中执行
+     * @param <T> 结果类型
+     * @return 完成为操作的结果，操作抛出异常时异常完成
+     */
+    public static <T> CompletableFuture<T> submit(String account, Supplier<T> operation) {
+        OperationTask<T> task = new OperationTask<>(account, null, operation);
+        shardOf(account).queue.add(task);
+        return task.future;
+    }
+
+    /**
+     * 在两个账号所属的分片上执行一个操作，执行期间两个分片都不处理其他操作
+     * 两个账号属于同一分片时等同于单分片执行
+     * @param first 账号一
+     * @param second 账号二
+     * @param operation 操作，在序号较小的分片线程中执行
+     * @param <T> 结果类型
+     * @return 完成为操作的结果，操作抛出异常时异常完成
+     */
+    public static <T> CompletableFuture<T> submit(String first, String second, Supplier<T> operation) {
+        Shard a = shardOf(first);
+        Shard b = shardOf(second);
+        OperationTask<T> task = new OperationTask<>(first, second, operation);
+        if (a == b) {
+            a.queue.add(task);
+        } else {
+            task.partner = a.index < b.index ? b : a;
+            (a.index < b.index ? a : b).queue.add(task);
+        }
+        return task.future;
+    }
+
+    /**
+     * 获取执行的操作数
+     * @return 操作数
+     */
+    public static long getOperationCount() {
+        return OPERATIONS.sum();
+    }
+
+    /**
+     * 获取跨分片转账次数
+     * @return 跨分片次数
+     */
+    public static long getCrossShardCount() {
+        return CROSS_SHARD.sum();
+    }
+
+    /**
+     * 获取各分片当前排队的操作数
+     * @return 每个分片的队列长度
+     */
+    public static int[] getQueueDepths() {
+        int[] depths = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            depths[i] = shards[i].queue.size();
+        }
+        return depths;
+    }
+
+    private static Shard shardOf(String account) {
+        if (!ENABLED) {
+            throw new IllegalStateException("分片事务引擎未启用");
+        }
+        return shards[Math.floorMod(account.hashCode(), shards.length)];
+    }
+
+    private static Shard[] createShards() {
+        Shard[] created = new Shard[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            created[i] = new Shard(i);
+            Thread t = new Thread(created[i]::runLoop, "txn-shard-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+        return created;
+    }
+
+    /**
+     * 分片
+     * 持有一个操作队列和一个串行执行的线程
+     */
+    private static final class Shard {
+        private final int index;
+        private final LinkedBlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+        /** 本批次中尚未写入的存款：账号 -> 按到达顺序排列的存款，只由分片线程访问 */
+        private final Map<String, List<DepositTask>> pendingDeposits = new LinkedHashMap<>();
+
+        private Shard(int index) {
+            this.index = index;
+        }
+
+        private void runLoop() {
+            List<Task> batch = new ArrayList<>(MAX_BATCH);
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (Task task : batch) {
+                    try {
+                        task.execute(this);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+                flushAll();
+                batch.clear();
+            }
+        }
+
+        /**
+         * 写入账号在本批次中尚未写入的存款
+         */
+        private void flush(String account) {
+            if (account == null) {
+                return;
+            }
+            List<DepositTask> deposits = pendingDeposits.remove(account);
+            if (deposits == null) {
+                return;
+            }
+            List<BigDecimal> amounts = new ArrayList<>(deposits.size());
+            for (DepositTask deposit : deposits) {
+                amounts.add(deposit.amount);
+            }
+            List<BigDecimal> balances;
+            try {
+                balances = DepositCoalescer.writeBatch(account, amounts);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                for (DepositTask deposit : deposits) {
+                    deposit.future.completeExceptionally(e);
+                }
+                return;
+            }
+            for (int i = 0; i < deposits.size(); i++) {
+                deposits.get(i).future.complete(balances == null ? null : balances.get(i));
+            }
+        }
+
+        private void flushAll() {
+            for (String account : new ArrayList<>(pendingDeposits.keySet())) {
+                flush(account);
+            }
+        }
+    }
+
+    /**
+     * 分片队列中的任务
+     */
+    private interface Task {
+        void execute(Shard shard);
+    }
+
+    /**
+     * 存款任务，先暂存在分片中，同一账号的其他操作执行前或批次结束时合并写入
+     */
+    private static final class DepositTask implements Task {
+        private final String account;
+        private final BigDecimal amount;
+        private final CompletableFuture<BigDecimal> future = new CompletableFuture<>();
+
+        private DepositTask(String account, BigDecimal amount) {
+            this.account = account;
+            this.amount = amount;
+        }
+
+        @Override
+        public void execute(Shard shard) {
+            OPERATIONS.increment();
+            shard.pendingDeposits.computeIfAbsent(account, k -> new ArrayList<>()).add(this);
+        }
+    }
+
+    /**
+     * 一般操作任务，partner不为空时需要先暂停另一个分片
+     */
+    private static final class OperationTask<T> implements Task {
+        private final String first;
+        private final String second;
+        private final Supplier<T> operation;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        /** 跨分片操作中序号较大的分片 */
+        private Shard partner;
+
+        private OperationTask(String first, String second, Supplier<T> operation) {
+            this.first = first;
+            this.second = second;
+            this.operation = operation;
+        }
+
+        @Override
+        public void execute(Shard shard) {
+            OPERATIONS.increment();
+            shard.flush(first);
+            shard.flush(second);
+            Barrier barrier = null;
+            if (partner != null) {
+                CROSS_SHARD.increment();
+                barrier = new Barrier(first, second);
+                partner.queue.add(barrier);
+                try {
+                    barrier.reached.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    barrier.release.countDown();
+                    future.completeExceptionally(e);
+                    return;
+                }
+            }
+            try {
+                future.complete(operation.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                if (barrier != null) {
+                    barrier.release.countDown();
+                }
+            }
+        }
+    }
+
+    /**
+     * 跨分片屏障
+     * 较大序号的分片执行到屏障时写入相关账号的存款并暂停，直到发起方的操作完成
+     */
+    private static final class Barrier implements Task {
+        private final String first;
+        private final String second;
+        private final CountDownLatch reached = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private Barrier(String first, String second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void execute(Shard shard) {
+            shard.flush(first);
+            shard.flush(second);
+            reached.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.bank.service.impl;
+
+import com.bank.dao.UserDao;
+import com.bank.dao.impl.UserDaoImpl;
+import com.bank.entity.ImportReport;
+import com.bank.entity.User;
+import com.bank.service.UserImportService;
+import com.bank.util.DBUtil;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 用户批量导入实现
+ * 流水线分三段：
+ * 1. 调用线程逐行流式读取CSV，按批次大小切块，内存中只保留少量批次
+ * 2. 每个批次在独立的ForkJoinPool中并行解析和校验，随后在调用线程按文件顺序去除文件内重复账号
+ * 3. 单独的写入线程过滤数据库中已存在的账号并用多行INSERT整批写入，与下一批次的读取和校验重叠执行
+ * 整批写入失败（如并发注册导致主键冲突）时退化为逐行写入，只拒绝真正失败的行
+ * 配置项：import.batchSize（默认1000）、import.parallelism（默认CPU核数）
+ */
+public class UserImportServiceImpl implements UserImportService {
+    /** 写入线程中最多排队的批次数，限制内存占用 */
+    private static final int MAX_PENDING_BATCHES = 2;
+
+    private static final Pattern ACCOUNT_PATTERN = Pattern.compile("\\d{11}");
+    private static final Pattern PHONE_PATTERN = Pattern.compile("1[3-9]\\d{9}");
+    private static final Pattern ID_CARD_PATTERN = Pattern.compile("\\d{17}[0-9X]");
+    private static final int[] ID_CARD_WEIGHTS = {7, 9, 10, 5, 8, 4, 2, 1, 6, 3, 7, 9, 10, 5, 8, 4, 2};
+    private static final char[] ID_CARD_CHECK_CODES = {'1', '0', 'X', '9', '8', '7', '6', '5', '4', '3', '2'};
+
+    private final UserDao userDao = new UserDaoImpl();
+    /** 每批次的行数 */
+    private final int batchSize = Math.max(1, DBUtil.getIntProperty("import.batchSize", 1000));
+    /** 并行校验的线程数 */
+    private final int parallelism = Math.max(1, DBUtil.getIntProperty("import.parallelism",
+        Runtime.getRuntime().availableProcessors()));
+
+    @Override
+    public ImportReport importUsers(Path csvFile, Path rejectReport) throws IOException {
+        long start = System.currentTimeMillis();
+        AtomicLong imported = new AtomicLong();
+        long total = 0;
+
+        ForkJoinPool validators = new ForkJoinPool(parallelism);
+        ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "user-import-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        Deque<Future<?>> pending = new ArrayDeque<>();
+        Set<String> seenAccounts = new HashSet<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8);
+             RejectWriter rejects = new RejectWriter(rejectReport)) {
+            // 第一行为表头
+            String line = reader.readLine();
+            int lineNo = 1;
+            List<RawRow> chunk = new ArrayList<>(batchSize);
+
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                total++;
+                chunk.add(new RawRow(lineNo, line));
+                if (chunk.size() == batchSize) {
+                    processChunk(chunk, validators, writer, pending, seenAccounts, rejects, imported);
+                    chunk = new ArrayList<>(batchSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(chunk, validators, writer, pending, seenAccounts, rejects, imported);
+            }
+            while (!pending.isEmpty()) {
+                await(pending.pollFirst());
+            }
+
+            long elapsed = System.currentTimeMillis() - start;
+            ImportReport report = new ImportReport(total, imported.get(), rejects.getCount(), elapsed,
+                rejectReport.toString());
+            System.out.println("用户批量导入完成：" + report + "，吞吐量："
+                + String.format("%.0f", report.getRowsPerSecond()) + "行/秒");
+            return report;
+        } finally {
+            validators.shutdownNow();
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * 处理一个批次：并行校验、文件内去重，然后交给写入线程
+     */
+    private void processChunk(List<RawRow> chunk, ForkJoinPool validators, ExecutorService writer,
+                              Deque<Future<?>> pending, Set<String> seenAccounts, RejectWriter rejects,
+                              AtomicLong imported) throws IOException {
+        List<ParsedRow> parsed;
+        try {
+            parsed = validators.submit(() -> chunk.parallelStream()
+                .map(this::parseRow)
+                .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("导入被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("校验数据失败", e.getCause());
+        }
+
+        List<ParsedRow> valid = new ArrayList<>(parsed.size());
+        for (ParsedRow row : parsed) {
+            if (row.error != null) {
+                rejects.write(row.lineNo, row.error, row.raw);
+            } else if (!seenAccounts.add(row.user.getAccount())) {
+                rejects.write(row.lineNo, "文件内账号重复", row.raw);
+            } else {
+                valid.add(row);
+            }
+        }
+
+        while (pending.size() >= MAX_PENDING_BATCHES) {
+            await(pending.pollFirst());
+        }
+        pending.addLast(writer.submit(() -> {
+            writeBatch(valid, rejects, imported);
+            return null;
+        }));
+    }
+
+    /**
+     * 写入一个批次，在写入线程中执行
+     * 先一次查询过滤已存在的账号，再整批插入；整批失败时逐行插入定位失败行
+     */
+    private void writeBatch(List<ParsedRow> rows, RejectWriter rejects, AtomicLong imported) throws IOException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> accounts = new ArrayList<>(rows.size());
+        for (ParsedRow row : rows) {
+            accounts.add(row.user.getAccount());
+        }
+        Set<String> existing = userDao.findExistingAccounts(accounts);
+
+        List<ParsedRow> fresh = new ArrayList<>(rows.size());
+        List<User> users = new ArrayList<>(rows.size());
+        for (ParsedRow row : rows) {
+            if (existing.contains(row.user.getAccount())) {
+                rejects.write(row.lineNo, "账号已存在", row.raw);
+            } else {
+                fresh.add(row);
+                users.add(row.user);
+            }
+        }
+        if (users.isEmpty()) {
+            return;
+        }
+
+        if (userDao.batchRegister(users)) {
+            for (User user : users) {
+                AccountExistenceFilter.add(user.getAccount());
+            }
+            imported.addAndGet(users.size());
+            return;
+        }
+        for (ParsedRow row : fresh) {
+            if (userDao.register(row.user)) {
+                AccountExistenceFilter.add(row.user.getAccount());
+                imported.incrementAndGet();
+            } else {
+                rejects.write(row.lineNo, "写入数据库失败（账号可能已存在）", row.raw);
+            }
+        }
+    }
+
+    /**
+     * 解析并校验一行数据，在校验线程池中并行执行
+     * @param raw 原始行
+     * @return 解析结果，校验失败时error不为空
+     */
+    private ParsedRow parseRow(RawRow raw) {
+        String[] cols = raw.line.split(",", -1);
+        if (cols.length < 5) {
+            return ParsedRow.rejected(raw, "列数不足，至少需要account,name,password,phone,id_card");
+        }
+        String account = cols[0].trim();
+        String name = cols[1].trim();
+        String password = cols[2].trim();
+        String phone = cols[3].trim();
+        String idCard = cols[4].trim().toUpperCase();
+
+        if (!ACCOUNT_PATTERN.matcher(account).matches()) {
+            return ParsedRow.rejected(raw, "账号必须是11位数字");
+        }
+        if (name.isEmpty() || name.length() > 50) {
+            return ParsedRow.rejected(raw, "姓名不能为空且不超过50个字符");
+        }
+        if (password.isEmpty() || password.length() > 255) {
+            return ParsedRow.rejected(raw, "密码不能为空且不超过255个字符");
+        }
+        if (!PHONE_PATTERN.matcher(phone).matches()) {
+            return ParsedRow.rejected(raw, "手机号格式不正确");
+        }
+        if (!ID_CARD_PATTERN.matcher(idCard).matches() || !isValidCheckDigit(idCard)) {
+            return ParsedRow.rejected(raw, "身份证号格式或校验位不正确");
+        }
+
+        BigDecimal balance = BigDecimal.ZERO;
+        if (cols.length > 5 && !cols[5].trim().isEmpty()) {
+            try {
+                balance = new BigDecimal(cols[5].trim());
+            } catch (NumberFormatException e) {
+                return ParsedRow.rejected(raw, "余额不是有效的数字");
+            }
+            if (balance.signum() < 0 || balance.scale() > 2) {
+                return ParsedRow.rejected(raw, "余额不能为负数且最多两位小数");
+            }
+        }
+
+        return ParsedRow.accepted(raw, new User(account, name, password, phone, idCard, balance));
+    }
+
+    /**
+     * 验证身份证校验位（GB 11643-1999）
+     */
+    private boolean isValidCheckDigit(String idCard) {
+        int sum = 0;
+        for (int i = 0; i < 17; i++) {
+            sum += (idCard.charAt(i) - '0') * ID_CARD_WEIGHTS[i];
+        }
+        return ID_CARD_CHECK_CODES[sum % 11] == idCard.charAt(17);
+    }
+
+    private void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("导入被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("写入数据失败", e.getCause());
+        }
+    }
+
+    /**
+     * CSV原始行
+     */
+    private static final class RawRow {
+        private final int lineNo;
+        private final String line;
+
+        private RawRow(int lineNo, String line) {
+            this.lineNo = lineNo;
+            this.line = line;
+        }
+    }
+
+    /**
+     * 解析后的行，user和error二者只有一个不为空
+     */
+    private static final class ParsedRow {
+        private final int lineNo;
+        private final String raw;
+        private final User user;
+        private final String error;
+
+        private ParsedRow(int lineNo, String raw, User user, String error) {
+            this.lineNo = lineNo;
+            this.raw = raw;
+            this.user = user;
+            this.error = error;
+        }
+
+        private static ParsedRow accepted(RawRow raw, User user) {
+            return new ParsedRow(raw.lineNo, raw.line, user, null);
+        }
+
+        private static ParsedRow rejected(RawRow raw, String error) {
+            return new ParsedRow(raw.lineNo, raw.line, null, error);
+        }
+    }
+
+    /**
+     * 被拒绝行报告写入器
+     * 读取线程和写入线程都会写入，方法加锁保证行不交错
+     */
+    private static final class RejectWriter implements Closeable {
+        private final BufferedWriter out;
+        private long count;
+
+        private RejectWriter(Path path) throws IOException {
+            this.out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            out.write("line,reason,raw");
+            out.newLine();
+        }
+
+        private synchronized void write(int lineNo, String reason, String raw) throws IOException {
+            count++;
+            out.write(lineNo + "," + reason + ",\"" + raw.replace("\"", "\"\"") + "\"");
+            out.newLine();
+        }
+
+        private synchronized long getCount() {
+            return count;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -1,61 +1,193 @@
 package com.bank.service.impl;
 
 import com.bank.dao.OperationLogDao;
+import com.bank.dao.TransactionDao;
 import com.bank.dao.UserDao;
 import com.bank.dao.impl.OperationLogDaoImpl;
+import com.bank.dao.impl.TransactionDaoImpl;
 import com.bank.dao.impl.UserDaoImpl;
+import com.bank.entity.AccountBalance;
 import com.bank.entity.OperationLog;
+import com.bank.entity.BatchTransferMode;
+import com.bank.entity.BatchTransferResult;
+import com.bank.entity.LedgerEntry;
+import com.bank.entity.Page;
+import com.bank.entity.TransactionType;
+import com.bank.entity.TransferLeg;
+import com.bank.entity.TransferResult;
+import com.bank.entity.UpdateResult;
 import com.bank.entity.User;
+import com.bank.entity.UserSummary;
 import com.bank.service.UserService;
+import com.bank.util.DBUtil;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class UserServiceImpl implements UserService {
+    /** 流式遍历时每次从服务端游标读取的行数 */
+    private static final int STREAM_FETCH_SIZE = Math.max(1, DBUtil.getIntProperty("stream.fetchSize", 1000));
+
+    /** 请求键的最大长度，与bank_idempotency_key.request_key一致 */
+    private static final int MAX_REQUEST_KEY_LENGTH = 64;
+
+    /**
+     * 存款、取款结果的编解码：只保存成功，重复请求返回true
+     * 余额写入在结果未知时抛出异常，返回false一定是明确的拒绝；同一个键仍在处理中时同样结果未知，
+     * 布尔值无法表达，抛出异常
+     */
+    private static final IdempotencyGuard.Codec<Boolean> BOOLEAN_CODEC = new IdempotencyGuard.Codec<>() {
+        @Override
+        public boolean isSuccess(Boolean result) {
+            return Boolean.TRUE.equals(result);
+        }
+
+        @Override
+        public String encode(Boolean result) {
+            return result.toString();
+        }
+
+        @Override
+        public Boolean decode(String value) {
+            return Boolean.valueOf(value);
+        }
+
+        @Override
+        public boolean isRejection(Boolean result) {
+            return Boolean.FALSE.equals(result);
+        }
+
+        @Override
+        public Boolean rejected() {
+            throw new IllegalStateException(TransferResult.Status.DUPLICATE_REQUEST.getMessage());
+        }
+    };
+
+    /** 转账结果的编解码：保存转账后双方的余额，重复请求原样返回 */
+    private static final IdempotencyGuard.Codec<TransferResult> TRANSFER_CODEC = new IdempotencyGuard.Codec<>() {
+        @Override
+        public boolean isSuccess(TransferResult result) {
+            return result.isSuccess();
+        }
+
+        @Override
+        public boolean isRejection(TransferResult result) {
+            // 系统错误可能发生在提交时，转账是否已生效未知
+            return !result.isSuccess() && result.getStatus() != TransferResult.Status.SYSTEM_ERROR;
+        }
+
+        @Override
+        public String encode(TransferResult result) {
+            return result.getFromBalance().toPlainString() + "," + result.getToBalance().toPlainString();
+        }
+
+        @Override
+        public TransferResult decode(String value) {
+            String[] balances = value.split(",", 2);
+            return TransferResult.success(new BigDecimal(balances[0]), new BigDecimal(balances[1]));
+        }
+
+        @Override
+        public TransferResult rejected() {
+            return TransferResult.of(TransferResult.Status.DUPLICATE_REQUEST);
+        }
+    };
+
     private final UserDao userDao = new UserDaoImpl();
     private final OperationLogDao logDao = new OperationLogDaoImpl();
+    private final TransactionDao transactionDao = new TransactionDaoImpl();
 
     @Override
     public User login(String account, String password) {
         if (account == null || account.trim().length() != 11 || password == null || password.trim().isEmpty()) {
             return null;
         }
+        // 登录不经过账号过滤器：其他客户端刚注册的账号在过滤器刷新前会被判为不存在
         return userDao.login(account, password);
     }
 
     @Override
     public String generateAccount() {
-        Random random = new Random();
-        StringBuilder sb = new StringBuilder("1");
-        for (int i = 0; i < 10; i++) {
-            sb.append(random.nextInt(10));
-        }
-        return sb.toString();
+        return AccountNumberAllocator.getInstance().nextAccount();
     }
 
     @Override
     public boolean register(User user) {
-        if (user == null || user.getAccount() == null || user.getPassword() == null) {
+        if (user == null || user.getPassword() == null) {
             return false;
         }
-        if (userDao.findByAccount(user.getAccount()) != null) {
-            return false;
+        if (user.getAccount() == null || user.getAccount().isEmpty()) {
+            String account = generateAccount();
+            if (account == null) {
+                return false;
+            }
+            user.setAccount(account);
         }
+        // 不再预先查询账号是否存在：分配器生成的账号不会重复，手工输入的重复账号由主键约束拒绝
         if (user.getBalance() == null) {
             user.setBalance(BigDecimal.ZERO);
         }
-        return userDao.register(user);
+        if (!userDao.register(user)) {
+            return false;
+        }
+        AccountExistenceFilter.add(user.getAccount());
+        return true;
     }
 
     @Override
     public boolean deposit(String account, BigDecimal amount) {
+        return join(depositAsync(account, amount));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> depositAsync(String account, BigDecimal amount) {
         if (account == null || amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            return false;
+            return CompletableFuture.completedFuture(false);
+        }
+        if (loadUser(account) == null) {
+            return CompletableFuture.completedFuture(false);
         }
-        if (userDao.findByAccount(account) == null) {
+        if (HotAccountRegistry.isStriped(account)) {
+            // 条带入账不读回总余额，也不改变主行版本号，只能使缓存失效
+            try {
+                return CompletableFuture.completedFuture(HotAccountRegistry.credit(account, amount));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            } finally {
+                AccountCache.invalidate(account);
+            }
+        }
+        if (ShardedTransactionEngine.isEnabled()) {
+            // 由账号所属的分片串行写入，同一批次的存款合并提交
+            return ShardedTransactionEngine.deposit(account, amount).thenApply(balance -> balance != null);
+        }
+        if (DepositCoalescer.isEnabled()) {
+            // 合并器写入后已同步账户缓存
+            return DepositCoalescer.submit(account, amount).thenApply(balance -> balance != null);
+        }
+        try {
+            return CompletableFuture.completedFuture(applyBalance(account,
+                writeOrInvalidate(account, () -> userDao.credit(account, amount, TransactionType.DEPOSIT))));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public boolean deposit(String account, BigDecimal amount, String requestKey) {
+        if (isBlank(requestKey)) {
+            return deposit(account, amount);
+        }
+        if (requestKey.length() > MAX_REQUEST_KEY_LENGTH || account == null) {
             return false;
         }
-        return userDao.updateBalance(account, amount);
+        return IdempotencyGuard.execute(requestKey, describe("DEPOSIT", null, amount), account, BOOLEAN_CODEC,
+            () -> deposit(account, amount));
     }
 
     @Override
@@ -63,29 +195,135 @@ public class UserServiceImpl implements UserService {
         if (account == null || amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             return false;
         }
-        User user = userDao.findByAccount(account);
-        if (user == null) {
-            return false;
+        if (ShardedTransactionEngine.isEnabled()) {
+            return join(ShardedTransactionEngine.submit(account, () -> debitNow(account, amount)));
+        }
+        return debitNow(account, amount);
+    }
+
+    /**
+     * 执行扣款并同步账户缓存
+     * @param account 账号
+     * @param amount 扣款金额
+     * @return 扣款是否成功
+     */
+    private boolean debitNow(String account, BigDecimal amount) {
+        AccountBalance balance = writeOrInvalidate(account, () -> userDao.debit(account, amount));
+        // 条带账户的入账还在子行上时主行余额可能不足，归并后重试一次；
+        // 其他客户端刚启用条带的账户可能还不在登记表中，不以isStriped为前提，没有子行余额时归并直接返回false
+        if (balance == null && HotAccountRegistry.consolidate(account)) {
+            balance = writeOrInvalidate(account, () -> userDao.debit(account, amount));
         }
-        if (user.getBalance().compareTo(amount) < 0) {
+        return applyBalance(account, balance);
+    }
+
+    @Override
+    public boolean withdraw(String account, BigDecimal amount, String requestKey) {
+        if (isBlank(requestKey)) {
+            return withdraw(account, amount);
+        }
+        if (requestKey.length() > MAX_REQUEST_KEY_LENGTH || account == null) {
             return false;
         }
-        return userDao.updateBalance(account, amount.negate());
+        return IdempotencyGuard.execute(requestKey, describe("WITHDRAW", null, amount), account, BOOLEAN_CODEC,
+            () -> withdraw(account, amount));
     }
 
     @Override
     public boolean transfer(String fromAccount, String toAccount, BigDecimal amount) {
+        return transferFunds(fromAccount, toAccount, amount).isSuccess();
+    }
+
+    @Override
+    public TransferResult transferFunds(String fromAccount, String toAccount, BigDecimal amount) {
         if (fromAccount == null || toAccount == null || amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            return false;
+            return TransferResult.of(TransferResult.Status.INVALID_REQUEST);
         }
-        if (userDao.findByAccount(fromAccount) == null || userDao.findByAccount(toAccount) == null) {
-            return false;
+        if (fromAccount.equals(toAccount)) {
+            return TransferResult.of(TransferResult.Status.SAME_ACCOUNT);
         }
-        User fromUser = userDao.findByAccount(fromAccount);
-        if (fromUser.getBalance().compareTo(amount) < 0) {
-            return false;
+        if (!AccountExistenceFilter.mightExist(toAccount)) {
+            return TransferResult.of(TransferResult.Status.TO_ACCOUNT_NOT_FOUND);
+        }
+        if (ShardedTransactionEngine.isEnabled()) {
+            // 双方账号所属的分片同时暂停，转账期间两个账号没有其他写者
+            return join(ShardedTransactionEngine.submit(fromAccount, toAccount,
+                () -> transferNow(fromAccount, toAccount, amount)));
         }
-        return userDao.transfer(fromAccount, toAccount, amount);
+        return transferNow(fromAccount, toAccount, amount);
+    }
+
+    /**
+     * 执行转账并同步账户缓存
+     * @param fromAccount 转出账号
+     * @param toAccount 转入账号
+     * @param amount 转账金额
+     * @return 转账结果
+     */
+    private TransferResult transferNow(String fromAccount, String toAccount, BigDecimal amount) {
+        TransferResult result = userDao.transfer(fromAccount, toAccount, amount);
+        if (result.getStatus() == TransferResult.Status.INSUFFICIENT_FUNDS
+                && HotAccountRegistry.consolidate(fromAccount)) {
+            result = userDao.transfer(fromAccount, toAccount, amount);
+        }
+        if (result.isSuccess()) {
+            AccountCache.updateBalance(fromAccount, result.getFromBalance(), result.getFromVersion());
+            AccountCache.updateBalance(toAccount, result.getToBalance(), result.getToVersion());
+        } else {
+            AccountCache.invalidate(fromAccount);
+            AccountCache.invalidate(toAccount);
+        }
+        if (result.getStatus() == TransferResult.Status.TO_ACCOUNT_NOT_FOUND) {
+            AccountExistenceFilter.recordFalsePositive();
+        }
+        return result;
+    }
+
+    @Override
+    public TransferResult transferFunds(String fromAccount, String toAccount, BigDecimal amount, String requestKey) {
+        if (isBlank(requestKey)) {
+            return transferFunds(fromAccount, toAccount, amount);
+        }
+        if (requestKey.length() > MAX_REQUEST_KEY_LENGTH || fromAccount == null) {
+            return TransferResult.of(TransferResult.Status.INVALID_REQUEST);
+        }
+        return IdempotencyGuard.execute(requestKey, describe("TRANSFER", toAccount, amount), fromAccount, TRANSFER_CODEC,
+            () -> transferFunds(fromAccount, toAccount, amount));
+    }
+
+    @Override
+    public BatchTransferResult batchTransfer(String fromAccount, List<TransferLeg> legs, BatchTransferMode mode) {
+        if (legs == null || legs.isEmpty()) {
+            return new BatchTransferResult(false, new ArrayList<>(), BigDecimal.ZERO, null);
+        }
+        if (fromAccount == null) {
+            List<TransferResult> results = new ArrayList<>(legs.size());
+            for (int i = 0; i < legs.size(); i++) {
+                results.add(TransferResult.of(TransferResult.Status.INVALID_REQUEST));
+            }
+            return new BatchTransferResult(false, results, BigDecimal.ZERO, null);
+        }
+        BatchTransferResult result = userDao.batchTransfer(fromAccount, legs,
+            mode != null ? mode : BatchTransferMode.ALL_OR_NOTHING);
+        if (result.isCommitted()) {
+            AccountCache.updateBalance(fromAccount, result.getFromBalance(), result.getFromVersion());
+        } else {
+            AccountCache.invalidate(fromAccount);
+        }
+        List<TransferResult> legResults = result.getLegResults();
+        for (int i = 0; i < legs.size(); i++) {
+            String toAccount = legs.get(i).getToAccount();
+            TransferResult leg = i < legResults.size() ? legResults.get(i) : null;
+            if (toAccount == null) {
+                continue;
+            }
+            if (result.isCommitted() && leg != null && leg.isSuccess()) {
+                AccountCache.updateBalance(toAccount, leg.getToBalance(), leg.getToVersion());
+            } else {
+                AccountCache.invalidate(toAccount);
+            }
+        }
+        return result;
     }
 
     @Override
@@ -93,7 +331,7 @@ public class UserServiceImpl implements UserService {
         if (account == null) {
             return null;
         }
-        User user = userDao.findByAccount(account);
+        User user = findByAccount(account);
         return user != null ? user.getBalance() : null;
     }
 
@@ -102,18 +340,27 @@ public class UserServiceImpl implements UserService {
         if (account == null) {
             return false;
         }
-        if (userDao.findByAccount(account) == null) {
+        if (loadUser(account) == null) {
             return false;
         }
-        return userDao.deleteUser(account);
+        return applyStatus(account, userDao.deleteUser(account));
     }
 
     @Override
     public User findByAccount(String account) {
-        if (account == null) {
+        if (account == null || !AccountExistenceFilter.mightExist(account)) {
             return null;
         }
-        return userDao.findByAccount(account);
+        User user = loadUser(account);
+        if (user == null) {
+            AccountExistenceFilter.recordFalsePositive();
+        }
+        return user;
+    }
+
+    @Override
+    public boolean accountMightExist(String account) {
+        return account != null && AccountExistenceFilter.mightExist(account);
     }
 
     @Override
@@ -126,15 +373,45 @@ public class UserServiceImpl implements UserService {
         return userDao.findByStatus(status);
     }
 
+    @Override
+    public Page<User> findUsersPage(Integer status, LocalDateTime afterCreateTime, String afterAccount, int pageSize) {
+        if (pageSize <= 0) {
+            return new Page<>(new ArrayList<>(), false);
+        }
+        return userDao.findPage(status, afterCreateTime, afterAccount, pageSize);
+    }
+
+    @Override
+    public Page<UserSummary> findUserSummaryPage(Integer status, LocalDateTime afterCreateTime, String afterAccount,
+                                                 int pageSize) {
+        if (pageSize <= 0) {
+            return new Page<>(new ArrayList<>(), false);
+        }
+        return userDao.findSummaryPage(status, afterCreateTime, afterAccount, pageSize);
+    }
+
+    @Override
+    public Stream<User> streamAllUsers() {
+        return userDao.streamAll(STREAM_FETCH_SIZE);
+    }
+
+    @Override
+    public Page<LedgerEntry> findTransactionHistory(String account, Long beforeId, int pageSize) {
+        if (account == null || pageSize <= 0) {
+            return new Page<>(new ArrayList<>(), false);
+        }
+        return transactionDao.findByAccount(account, beforeId, pageSize);
+    }
+
     @Override
     public boolean lockAccount(String account) {
         if (account == null) {
             return false;
         }
-        if (userDao.findByAccount(account) == null) {
+        if (loadUser(account) == null) {
             return false;
         }
-        return userDao.updateStatus(account, 0);
+        return applyStatus(account, userDao.updateStatus(account, 0));
     }
 
     @Override
@@ -142,10 +419,29 @@ public class UserServiceImpl implements UserService {
         if (account == null) {
             return false;
         }
-        if (userDao.findByAccount(account) == null) {
+        if (loadUser(account) == null) {
             return false;
         }
-        return userDao.updateStatus(account, 1);
+        return applyStatus(account, userDao.updateStatus(account, 1));
+    }
+
+    @Override
+    public boolean enableHotAccount(String account, int stripes) {
+        if (account == null || loadUser(account) == null) {
+            return false;
+        }
+        return HotAccountRegistry.enable(account, stripes);
+    }
+
+    @Override
+    public UpdateResult changeStatus(String account, int status, int expectedStatus) {
+        if (account == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        UpdateResult result = userDao.updateStatusIfStatus(account, status, expectedStatus);
+        // 条件只比较状态，更新后的版本号未知，成功和失败都让缓存失效
+        AccountCache.invalidate(account);
+        return result;
     }
 
     @Override
@@ -153,9 +449,96 @@ public class UserServiceImpl implements UserService {
         if (account == null || amount == null) {
             return false;
         }
-        if (userDao.findByAccount(account) == null) {
+        if (loadUser(account) == null) {
             return false;
         }
-        return userDao.updateBalance(account, amount);
+        return applyBalance(account,
+            writeOrInvalidate(account, () -> userDao.credit(account, amount, TransactionType.ADJUST)));
+    }
+
+    /**
+     * 生成幂等键记录中的操作描述，包含操作名称、对方账号和金额
+     * 同一个键被用于参数不同的请求时描述不一致，按键冲突拒绝
+     */
+    private static String describe(String operation, String counterparty, BigDecimal amount) {
+        StringBuilder sb = new StringBuilder(operation);
+        if (counterparty != null) {
+            sb.append(' ').append(counterparty);
+        }
+        if (amount != null) {
+            sb.append(' ').append(amount.stripTrailingZeros().toPlainString());
+        }
+        return sb.toString();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * 通过账户缓存读取用户，未命中时查询数据库
+     * @param account 账号
+     * @return 用户，不存在返回null
+     */
+    private User loadUser(String account) {
+        return AccountCache.get(account, userDao::findByAccount);
+    }
+
+    /**
+     * 等待异步操作完成
+     * 操作抛出的异常原样抛出，而不是包装为CompletionException，调用方看到的异常与同步执行时一致
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 执行余额写入
+     * 写入抛出异常时余额是否已变动未知，使账户缓存失效后原样抛出，由调用方按结果未知处理
+     * @param account 账号
+     * @param write 写入操作
+     * @return 写入操作的结果
+     */
+    private static <T> T writeOrInvalidate(String account, Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (RuntimeException e) {
+            AccountCache.invalidate(account);
+            throw e;
+        }
+    }
+
+    /**
+     * 把余额写入结果同步到账户缓存
+     * @param account 账号
+     * @param balance 写入后的余额和版本号，写入失败为null
+     * @return 写入是否成功
+     */
+    private boolean applyBalance(String account, AccountBalance balance) {
+        if (balance == null) {
+            AccountCache.invalidate(account);
+            return false;
+        }
+        AccountCache.updateBalance(account, balance.getBalance(), balance.getVersion());
+        return true;
+    }
+
+    /**
+     * 把状态写入结果同步到账户缓存
+     * 不带版本号条件的状态更新不返回提交后的版本号，无法判断与并发写入的先后，一律使缓存失效
+     * @param account 账号
+     * @param success 写入是否成功
+     * @return 写入是否成功
+     */
+    private boolean applyStatus(String account, boolean success) {
+        AccountCache.invalidate(account);
+        return success;
     }
 }
@@ -0,0 +1,81 @@
+package com.bank.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 中日韩二元分词器
+ * 中文没有空格分隔词语，按词典分词需要额外的词库；这里把连续的中日韩字符切成相邻两字一组的词元
+ * （"转账失败" -> "转账" "账失" "失败"），任意长度不小于2的子串都能由其中的词元拼出，不需要词库
+ * 连续的字母和数字整体作为一个词元并转为小写，账号、金额等原样可查；其他字符视为分隔符
+ * 只有一个字的中日韩片段作为单字词元
+ */
+public final class BigramTokenizer {
+
+    private BigramTokenizer() {
+    }
+
+    /**
+     * 切分文本
+     * @param text 文本，可以为null
+     * @return 按出现顺序排列的词元，可能重复
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int start = i;
+                int previous = -1;
+                while (i < length && isCjk(cp = text.codePointAt(i))) {
+                    if (previous >= 0) {
+                        tokens.add(text.substring(previous, i + Character.charCount(cp)));
+                    }
+                    previous = i;
+                    i += Character.charCount(cp);
+                }
+                if (previous == start) {
+                    tokens.add(text.substring(start, i));
+                }
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(cp = text.codePointAt(i)) && !isCjk(cp)) {
+                    i += Character.charCount(cp);
+                }
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 规范化文本，用于短语匹配时的原文比对
+     * 只做小写转换，与词元的大小写规则一致
+     * @param text 文本，可以为null
+     * @return 规范化后的文本，null返回空串
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 是否为中日韩字符（汉字、平假名、片假名、谚文）
+     * @param codePoint 码点
+     * @return true-是
+     */
+    public static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+            || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA
+            || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,143 @@
+package com.bank.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 布隆过滤器
+ * 以位数组判断字符串"一定不存在"或"可能存在"，不存在误判为不存在的情况，
+ * 可能存在的误判率由位数组大小和哈希函数个数决定
+ * 位数组使用AtomicLongArray，添加和查询都无锁，可在多线程间共享
+ * 哈希使用64位FNV-1a混合后按双重哈希 h1 + i*h2 派生出k个位置
+ */
+public class BloomFilter {
+    /** 位数组，每个long存64位 */
+    private final AtomicLongArray bits;
+    /** 位数组总位数 */
+    private final long bitCount;
+    /** 哈希函数个数 */
+    private final int hashCount;
+    /** 已添加的元素个数（重复添加也计数，是实际元素数的上界） */
+    private final LongAdder insertions = new LongAdder();
+
+    /**
+     * 按预期元素个数和目标误判率创建过滤器
+     * 位数 m = -n*ln(p)/(ln2)^2，哈希函数个数 k = m/n*ln2
+     * @param expectedInsertions 预期元素个数
+     * @param falsePositiveRate 目标误判率，取值(0, 1)
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1L, expectedInsertions);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1L, (m + 63) / 64));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    /**
+     * 添加元素
+     * @param value 元素，null忽略
+     */
+    public void put(String value) {
+        if (value == null) {
+            return;
+        }
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0) {
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    break;
+                }
+            }
+        }
+        insertions.increment();
+    }
+
+    /**
+     * 判断元素是否可能存在
+     * @param value 元素
+     * @return false表示一定不存在，true表示可能存在
+     */
+    public boolean mightContain(String value) {
+        if (value == null) {
+            return false;
+        }
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按当前元素个数估算误判率：(1 - e^(-k*n/m))^k
+     * @return 估算的误判率
+     */
+    public double expectedFalsePositiveRate() {
+        double n = insertions.sum();
+        return Math.pow(1 - Math.exp(-hashCount * n / bitCount), hashCount);
+    }
+
+    /**
+     * 获取已添加的元素个数
+     * @return 添加次数
+     */
+    public long getInsertionCount() {
+        return insertions.sum();
+    }
+
+    /**
+     * 获取位数组占用的内存
+     * @return 字节数
+     */
+    public long getMemoryBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    /**
+     * 获取位数组总位数
+     * @return 位数
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * 获取哈希函数个数
+     * @return 哈希函数个数
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * 64位FNV-1a哈希，末尾再做一次混合使高低32位都分布均匀
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,329 @@
+package com.bank.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 数据库连接池
+ * 维护一组可复用的物理连接，避免每次数据库操作都重新建立TCP连接和MySQL认证
+ * 特性：
+ * 1. 最小/最大连接数限制，超出最大连接数时在获取超时时间内等待
+ * 2. 借出时校验连接有效性，失效连接直接丢弃并重新创建
+ * 3. 后台线程定期回收空闲超时的连接，并补齐最小连接数
+ * 4. 每个物理连接附带一个预编译语句缓存，见StatementCache
+ * 借出的连接是一个代理对象，调用close()时归还到连接池而不是真正关闭
+ */
+public class ConnectionPool {
+    /** 数据库连接URL */
+    private final String url;
+    /** 数据库用户名 */
+    private final String username;
+    /** 数据库密码 */
+    private final String password;
+    /** 最小连接数，空闲回收时至少保留这么多连接 */
+    private final int minSize;
+    /** 最大连接数 */
+    private final int maxSize;
+    /** 获取连接的最长等待时间（毫秒） */
+    private final long acquireTimeoutMillis;
+    /** 空闲连接的最长存活时间（毫秒），超过后被回收 */
+    private final long idleTimeoutMillis;
+    /** 借出时校验连接的超时时间（秒） */
+    private final int validationTimeoutSeconds;
+    /** 每个连接的预编译语句缓存容量，0表示不缓存 */
+    private final int statementCacheSize;
+
+    /** 空闲连接队列，后进先出，使热连接优先被复用 */
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    /** 借出许可，数量等于最大连接数 */
+    private final Semaphore permits;
+    /** 当前物理连接总数（空闲 + 借出） */
+    private final AtomicInteger totalCount = new AtomicInteger();
+    /** 空闲回收调度线程 */
+    private final ScheduledExecutorService evictor;
+    /** 连接池是否已关闭 */
+    private volatile boolean shutdown;
+
+    /**
+     * 构造函数
+     * @param url 数据库连接URL
+     * @param username 数据库用户名
+     * @param password 数据库密码
+     * @param minSize 最小连接数
+     * @param maxSize 最大连接数
+     * @param acquireTimeoutMillis 获取连接的最长等待时间（毫秒）
+     * @param idleTimeoutMillis 空闲连接的最长存活时间（毫秒）
+     * @param validationTimeoutSeconds 借出时校验连接的超时时间（秒）
+     * @param statementCacheSize 每个连接的预编译语句缓存容量，0表示不缓存
+     */
+    public ConnectionPool(String url, String username, String password, int minSize, int maxSize,
+                          long acquireTimeoutMillis, long idleTimeoutMillis, int validationTimeoutSeconds,
+                          int statementCacheSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize必须大于0：" + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = Math.max(0, Math.min(minSize, maxSize));
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000L, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 从连接池借出一个连接
+     * 优先复用空闲连接（借出前校验有效性），没有空闲连接时新建物理连接
+     * @return 连接代理对象，调用close()即归还；超时或建立连接失败时抛出SQLException
+     * @throws SQLException 获取超时、连接池已关闭或建立物理连接失败
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("连接池已关闭");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("获取数据库连接超时（" + acquireTimeoutMillis + "ms），当前连接数：" + totalCount.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("获取数据库连接时线程被中断", e);
+        }
+
+        try {
+            PooledEntry entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (validate(entry.physical)) {
+                    return entry.lease(this);
+                }
+                discard(entry);
+            }
+            entry = newEntry();
+            totalCount.incrementAndGet();
+            return entry.lease(this);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还连接
+     * 由连接代理的close()调用，重置事务状态后放回空闲队列
+     * @param entry 被归还的连接条目
+     */
+    private void giveBack(PooledEntry entry) {
+        try {
+            Connection physical = entry.physical;
+            if (shutdown || physical.isClosed()) {
+                discard(entry);
+                return;
+            }
+            // 未提交的事务一律回滚，避免把脏状态留给下一个借用者
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            entry.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(entry);
+        } catch (SQLException e) {
+            System.out.println("归还连接时重置状态失败，丢弃该连接：" + e.getMessage());
+            discard(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 关闭连接池，关闭所有空闲连接
+     * 已借出的连接在归还时被关闭
+     */
+    public void shutdown() {
+        shutdown = true;
+        evictor.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            discard(entry);
+        }
+    }
+
+    /**
+     * 获取当前物理连接总数
+     * @return 空闲连接数 + 借出连接数
+     */
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * 获取当前空闲连接数
+     * @return 空闲连接数
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * 获取当前借出连接数
+     * @return 借出连接数
+     */
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * 回收空闲超时的连接，并补齐最小连接数
+     * 由后台调度线程周期性执行
+     */
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledEntry entry = it.next();
+            if (totalCount.get() <= minSize) {
+                break;
+            }
+            if (now - entry.lastUsed > idleTimeoutMillis && idle.remove(entry)) {
+                discard(entry);
+            }
+        }
+
+        while (!shutdown && totalCount.get() < minSize) {
+            try {
+                PooledEntry entry = newEntry();
+                totalCount.incrementAndGet();
+                idle.offerLast(entry);
+            } catch (SQLException e) {
+                System.out.println("补齐最小连接数失败：" + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    private PooledEntry newEntry() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        StatementCache cache = statementCacheSize > 0 ? new StatementCache(statementCacheSize) : null;
+        return new PooledEntry(physical, cache);
+    }
+
+    private boolean validate(Connection physical) {
+        try {
+            return physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledEntry entry) {
+        totalCount.decrementAndGet();
+        if (entry.statementCache != null) {
+            entry.statementCache.clear();
+        }
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            // 连接已不可用，忽略关闭异常
+        }
+    }
+
+    /**
+     * 连接池条目
+     * 持有一个物理连接、它的预编译语句缓存及最后使用时间
+     */
+    private static final class PooledEntry {
+        /** 物理连接 */
+        private final Connection physical;
+        /** 预编译语句缓存，未启用时为null */
+        private final StatementCache statementCache;
+        /** 最后一次归还的时间，用于空闲回收 */
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private PooledEntry(Connection physical, StatementCache statementCache) {
+            this.physical = physical;
+            this.statementCache = statementCache;
+        }
+
+        /**
+         * 生成一次借用的连接代理
+         * 每次借用都是新的代理对象，归还后旧代理失效，防止借用者误用已归还的连接
+         */
+        private Connection lease(ConnectionPool pool) {
+            return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new LeaseHandler(pool, this));
+        }
+    }
+
+    /**
+     * 连接代理的调用处理器
+     * 拦截close()/isClosed()，单参数的prepareStatement(sql)走语句缓存，其余方法转发给物理连接
+     */
+    private static final class LeaseHandler implements InvocationHandler {
+        private final ConnectionPool pool;
+        private final PooledEntry entry;
+        private boolean closed;
+
+        private LeaseHandler(ConnectionPool pool, PooledEntry entry) {
+            this.pool = pool;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.giveBack(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("连接已归还到连接池，不能继续使用");
+            }
+            if (entry.statementCache != null && "prepareStatement".equals(name) && args.length == 1) {
+                return entry.statementCache.prepare(entry.physical, (String) args[0]);
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
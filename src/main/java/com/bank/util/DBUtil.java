@@ -4,7 +4,6 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -14,6 +13,7 @@ import java.util.Properties;
  * 数据库工具类
  * 负责管理数据库连接的获取和释放
  * 使用单例模式加载数据库配置，提供静态方法获取数据库连接
+ * 连接由内置连接池管理，getConnection()借出连接，close()将连接归还到连接池
  */
 public class DBUtil {
     /** JDBC驱动程序类名 */
@@ -24,6 +24,10 @@ public class DBUtil {
     private static String username;
     /** 数据库密码 */
     private static String password;
+    /** db.properties中的全部配置项，供连接池等组件读取扩展配置 */
+    private static final Properties properties = new Properties();
+    /** 数据库连接池 */
+    private static ConnectionPool pool;
 
     /**
      * 静态代码块
@@ -32,7 +36,6 @@ public class DBUtil {
      * 提供默认配置作为fallback，确保程序在配置文件缺失时也能运行
      */
     static {
-        Properties properties = new Properties();
         InputStream inputStream = null;
         
         try {
@@ -59,7 +62,7 @@ public class DBUtil {
                 driver = "com.mysql.cj.jdbc.Driver";
             }
             if (url == null || url.trim().isEmpty()) {
-                url = "jdbc:mysql://localhost:3306/bank_system?useSSL=false&serverTimezone=UTC&characterEncoding=utf8";
+                url = "jdbc:mysql://localhost:3306/bank_system?useSSL=false&serverTimezone=UTC&characterEncoding=utf8&useServerPrepStmts=true&rewriteBatchedStatements=true&useCursorFetch=true";
             }
             if (username == null || username.trim().isEmpty()) {
                 username = "root";
@@ -84,7 +87,7 @@ public class DBUtil {
             e.printStackTrace();
             // 提供默认配置，避免类初始化失败导致程序无法启动
             driver = "com.mysql.cj.jdbc.Driver";
-            url = "jdbc:mysql://localhost:3306/bank_system?useSSL=false&serverTimezone=UTC&characterEncoding=utf8";
+            url = "jdbc:mysql://localhost:3306/bank_system?useSSL=false&serverTimezone=UTC&characterEncoding=utf8&useServerPrepStmts=true&rewriteBatchedStatements=true&useCursorFetch=true";
             username = "root";
             password = "123456";
             
@@ -117,21 +120,101 @@ public class DBUtil {
                 }
             }
         }
+
+        initPool();
+    }
+
+    /**
+     * 初始化连接池
+     * 连接池参数从db.properties读取，未配置时使用默认值：
+     * pool.minSize=2, pool.maxSize=10, pool.acquireTimeout=5000(ms),
+     * pool.idleTimeout=300000(ms), pool.validationTimeout=2(s), pool.statementCacheSize=64
+     */
+    private static void initPool() {
+        int minSize = getIntProperty("pool.minSize", 2);
+        int maxSize = getIntProperty("pool.maxSize", 10);
+        long acquireTimeout = getLongProperty("pool.acquireTimeout", 5000L);
+        long idleTimeout = getLongProperty("pool.idleTimeout", 300000L);
+        int validationTimeout = getIntProperty("pool.validationTimeout", 2);
+        int statementCacheSize = getIntProperty("pool.statementCacheSize", 64);
+
+        pool = new ConnectionPool(url, username, password, minSize, maxSize,
+            acquireTimeout, idleTimeout, validationTimeout, statementCacheSize);
+        System.out.println("数据库连接池初始化完成：minSize=" + minSize + ", maxSize=" + maxSize
+            + ", acquireTimeout=" + acquireTimeout + "ms, idleTimeout=" + idleTimeout + "ms"
+            + ", statementCacheSize=" + statementCacheSize);
+
+        // 程序退出时关闭连接池中的物理连接
+        Runtime.getRuntime().addShutdownHook(new Thread(pool::shutdown, "db-pool-shutdown"));
+    }
+
+    /**
+     * 读取字符串配置项
+     * @param key 配置项名称
+     * @param defaultValue 未配置时的默认值
+     * @return 配置值
+     */
+    public static String getProperty(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    /**
+     * 读取整数配置项
+     * @param key 配置项名称
+     * @param defaultValue 未配置或格式错误时的默认值
+     * @return 配置值
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        String value = getProperty(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.out.println("配置项 " + key + " 格式错误，使用默认值：" + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 读取长整数配置项
+     * @param key 配置项名称
+     * @param defaultValue 未配置或格式错误时的默认值
+     * @return 配置值
+     */
+    public static long getLongProperty(String key, long defaultValue) {
+        String value = getProperty(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.out.println("配置项 " + key + " 格式错误，使用默认值：" + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 获取连接池实例，用于查看连接池状态
+     * @return 连接池
+     */
+    public static ConnectionPool getPool() {
+        return pool;
     }
     
     /**
      * 获取数据库连接
-     * 根据配置文件中的参数建立与MySQL数据库的连接
+     * 从连接池借出一个连接，连接池中没有可用连接时按配置建立新连接
+     * 使用完毕后必须调用close()（或DBUtil.close）归还到连接池
      * @return Connection 返回数据库连接对象，连接失败返回null
      */
     public static Connection getConnection() {
         Connection conn = null;
         try {
-            // 尝试连接数据库
-            conn = DriverManager.getConnection(url, username, password);
-            System.out.println("数据库连接成功：" + conn);
-            System.out.println("连接URL：" + url);
-            System.out.println("连接用户：" + username);
+            conn = pool.borrow();
         } catch (SQLException e) {
             // 连接失败，打印详细错误信息
             System.out.println("数据库连接失败！");
@@ -161,7 +244,7 @@ public class DBUtil {
 
     /**
      * 关闭所有数据库资源
-     * 依次关闭ResultSet、PreparedStatement和Connection
+     * 依次关闭ResultSet、PreparedStatement和Connection，Connection会被归还到连接池
      * 注意：关闭顺序很重要，应该先关闭ResultSet，再关闭PreparedStatement，最后关闭Connection
      * @param conn Connection数据库连接对象，可以为null
      * @param pstmt PreparedStatement预编译语句对象，可以为null
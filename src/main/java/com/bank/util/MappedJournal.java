@@ -0,0 +1,286 @@
+package com.bank.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 内存映射的只追加日志文件
+ * 文件按固定容量整体映射到内存，追加和读取都是内存拷贝，不经过系统调用；每次追加后force()刷盘
+ * 文件布局：
+ * 1. 16字节文件头：魔数(4) + 保留(4) + 已消费位置(8)
+ * 2. 记录依次排列：长度(4) + CRC32(4) + 内容；最后一条记录之后写入长度0作为结束标记
+ * 打开时从已消费位置向后扫描，遇到长度0、越界或CRC不符（写到一半时进程崩溃）即认为是写入末尾
+ * 文件按环形使用：末尾放不下一次追加的记录时，若文件头之后到已消费位置之间放得下，就从文件头之后接着写，
+ * 写完后在原末尾写入回绕标记（长度-1），读取和扫描遇到回绕标记跳回文件头之后。
+ * 已写入的记录从不搬移，任何时刻崩溃文件头指向的记录都完整；未消费记录之外的空间都可以再利用
+ * 打开时对整个文件加排他锁，同一个文件只能由一个进程使用；锁已被其他进程持有时构造函数抛出LockedException
+ * 非线程安全的方法均已同步，可由多个线程共同追加
+ */
+public class MappedJournal implements Closeable {
+    /** 文件魔数 "BJNL" */
+    private static final int MAGIC = 0x424A4E4C;
+    /** 文件头长度 */
+    private static final int HEADER_SIZE = 16;
+    /** 已消费位置在文件头中的偏移 */
+    private static final int READ_OFFSET_POS = 8;
+    /** 记录头长度：长度 + CRC32 */
+    private static final int RECORD_HEADER_SIZE = 8;
+    /** 回绕标记，写在长度字段的位置 */
+    private static final int WRAP = -1;
+
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    /** 第一条未消费记录的位置 */
+    private int readOffset;
+    /** 下一条记录的写入位置 */
+    private int writeOffset;
+    /** 未消费区域中回绕标记的位置，未回绕时为-1 */
+    private int wrapOffset = -1;
+
+    /**
+     * 打开或创建日志文件
+     * @param path 文件路径
+     * @param capacity 文件容量（字节），已有文件按原容量映射，不会截断
+     * @throws LockedException 文件已被其他进程打开
+     * @throws IOException 打开或映射失败
+     */
+    public MappedJournal(Path path, int capacity) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // 同一进程内已经打开过这个文件
+            acquired = null;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (acquired == null) {
+            channel.close();
+            throw new LockedException(path);
+        }
+        this.lock = acquired;
+        this.capacity = (int) Math.max(capacity, Math.min(channel.size(), Integer.MAX_VALUE));
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.capacity);
+
+        long stored = buffer.getLong(READ_OFFSET_POS);
+        if (buffer.getInt(0) != MAGIC || stored < HEADER_SIZE || stored + 4 > this.capacity) {
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.putInt(0, MAGIC);
+            buffer.putLong(READ_OFFSET_POS, HEADER_SIZE);
+            buffer.force();
+            stored = HEADER_SIZE;
+        }
+        this.readOffset = (int) stored;
+        if (buffer.getInt(readOffset) == WRAP) {
+            readOffset = HEADER_SIZE;
+        }
+        this.writeOffset = scan();
+    }
+
+    /**
+     * 追加一组记录，全部写入或全部不写
+     * @param records 记录内容
+     * @return 成功返回true；空间不足返回false
+     */
+    public synchronized boolean append(List<byte[]> records) {
+        if (records.isEmpty()) {
+            return true;
+        }
+        long needed = 4;
+        for (byte[] record : records) {
+            needed += RECORD_HEADER_SIZE + record.length;
+        }
+        int pos;
+        if (wrapOffset >= 0) {
+            // 已回绕：只能写到未消费区域之前，并留出结束标记的位置
+            if (writeOffset + needed > readOffset) {
+                return false;
+            }
+            pos = writeOffset;
+        } else if (writeOffset + needed <= capacity) {
+            pos = writeOffset;
+        } else if (HEADER_SIZE + needed <= readOffset) {
+            pos = HEADER_SIZE;
+        } else {
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        int end = pos;
+        for (byte[] record : records) {
+            crc.reset();
+            crc.update(record);
+            // 先写内容和CRC，最后写长度：长度写入前崩溃时该位置仍是结束标记
+            buffer.putInt(end + 4, (int) crc.getValue());
+            buffer.put(end + RECORD_HEADER_SIZE, record);
+            buffer.putInt(end + RECORD_HEADER_SIZE + record.length, 0);
+            buffer.putInt(end, record.length);
+            end += RECORD_HEADER_SIZE + record.length;
+        }
+        if (pos != writeOffset) {
+            // 回绕：文件头之后的记录全部写完后才把原末尾的结束标记改为回绕标记，
+            // 在此之前崩溃时扫描停在原末尾，新记录整体不可见
+            buffer.putInt(writeOffset, WRAP);
+            wrapOffset = writeOffset;
+        }
+        writeOffset = end;
+        buffer.force();
+        return true;
+    }
+
+    /**
+     * 读取未消费的记录，不移动消费位置
+     * @param maxRecords 最多读取的条数
+     * @return 记录内容，按写入顺序排列
+     */
+    public synchronized List<byte[]> peek(int maxRecords) {
+        List<byte[]> records = new ArrayList<>();
+        int pos = readOffset;
+        while (pos != writeOffset && records.size() < maxRecords) {
+            int length = buffer.getInt(pos);
+            byte[] record = new byte[length];
+            buffer.get(pos + RECORD_HEADER_SIZE, record);
+            records.add(record);
+            pos = follow(pos + RECORD_HEADER_SIZE + length);
+        }
+        return records;
+    }
+
+    /**
+     * 确认前count条未消费的记录已处理完毕
+     * 全部消费完时回到文件开头重新写
+     * @param count 已处理的条数，应不大于上一次peek返回的条数
+     */
+    public synchronized void consume(int count) {
+        int pos = readOffset;
+        for (int i = 0; i < count && pos != writeOffset; i++) {
+            pos = follow(pos + RECORD_HEADER_SIZE + buffer.getInt(pos));
+            if (pos == HEADER_SIZE) {
+                wrapOffset = -1;
+            }
+        }
+        if (pos == writeOffset) {
+            // 先在开头写结束标记再更新文件头，两步之间崩溃时文件头仍指向旧的写入末尾，同样为空
+            buffer.putInt(HEADER_SIZE, 0);
+            pos = HEADER_SIZE;
+            writeOffset = HEADER_SIZE;
+            wrapOffset = -1;
+        }
+        readOffset = pos;
+        buffer.putLong(READ_OFFSET_POS, readOffset);
+        buffer.force();
+    }
+
+    /**
+     * 是否没有未消费的记录
+     * @return true-为空
+     */
+    public synchronized boolean isEmpty() {
+        return readOffset == writeOffset;
+    }
+
+    /**
+     * 获取未消费记录占用的字节数
+     * @return 字节数
+     */
+    public synchronized int getPendingBytes() {
+        if (wrapOffset >= 0) {
+            return (wrapOffset - readOffset) + (writeOffset - HEADER_SIZE);
+        }
+        return writeOffset - readOffset;
+    }
+
+    /**
+     * 获取文件容量
+     * @return 字节数
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        lock.release();
+        channel.close();
+    }
+
+    /**
+     * 位置上是回绕标记时跳回文件头之后
+     */
+    private int follow(int pos) {
+        return pos == wrapOffset ? HEADER_SIZE : pos;
+    }
+
+    /**
+     * 从已消费位置向后扫描完整的记录，返回写入末尾
+     * 遇到回绕标记时从文件头之后继续，回绕后的记录不能越过已消费位置
+     * append总在记录之后留出4字节的结束标记，回绕标记可能落在距末尾不足一个记录头的位置，
+     * 因此只要剩余4字节就先读长度字段判断回绕，再要求完整的记录头；完整的记录之后也必然留有4字节
+     */
+    private int scan() {
+        CRC32 crc = new CRC32();
+        int pos = readOffset;
+        int limit = capacity;
+        while (pos + 4 <= limit) {
+            int length = buffer.getInt(pos);
+            if (length == WRAP && wrapOffset < 0 && pos != HEADER_SIZE) {
+                wrapOffset = pos;
+                pos = HEADER_SIZE;
+                limit = readOffset;
+                continue;
+            }
+            if (length <= 0 || pos + RECORD_HEADER_SIZE + (long) length + 4 > limit) {
+                break;
+            }
+            byte[] record = new byte[length];
+            buffer.get(pos + RECORD_HEADER_SIZE, record);
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != buffer.getInt(pos + 4)) {
+                System.out.println("日志文件在位置" + pos + "处校验失败，之后的内容视为未写完而丢弃");
+                break;
+            }
+            pos += RECORD_HEADER_SIZE + length;
+        }
+        if (wrapOffset >= 0 && pos == HEADER_SIZE) {
+            // 回绕标记之后没有完整的记录，等同于未回绕
+            buffer.putInt(wrapOffset, 0);
+            pos = wrapOffset;
+            wrapOffset = -1;
+        }
+        if (pos + 4 <= capacity) {
+            buffer.putInt(pos, 0);
+        }
+        return pos;
+    }
+
+    /**
+     * 日志文件已被其他进程打开
+     */
+    public static class LockedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 构造函数
+         * @param path 文件路径
+         */
+        public LockedException(Path path) {
+            super("日志文件已被其他进程占用：" + path);
+        }
+    }
+}
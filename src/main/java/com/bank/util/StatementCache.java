@@ -0,0 +1,232 @@
+package com.bank.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预编译语句缓存
+ * 每个物理连接持有一个实例，以SQL文本为键缓存PreparedStatement，按LRU策略淘汰
+ * DAO层对同一条SQL重复调用prepareStatement时直接复用已预编译的语句，
+ * 配合URL参数useServerPrepStmts=true可省去服务端每次的解析和执行计划开销
+ * 缓存返回的是语句代理，调用close()时只清空参数和批处理并放回缓存，不会真正关闭；
+ * 清空失败的语句不再复用，直接关闭并在下次预编译同一SQL时替换，借用者留下的批处理不会被下一个借用者执行
+ */
+public class StatementCache {
+    /** 全局命中次数 */
+    private static final LongAdder HITS = new LongAdder();
+    /** 全局未命中次数 */
+    private static final LongAdder MISSES = new LongAdder();
+    /** 全局淘汰次数 */
+    private static final LongAdder EVICTIONS = new LongAdder();
+
+    /** 缓存容量 */
+    private final int capacity;
+    /** SQL文本 -> 缓存条目，accessOrder=true实现LRU */
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    /**
+     * 构造函数
+     * @param capacity 缓存容量，必须大于0
+     */
+    public StatementCache(int capacity) {
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                EVICTIONS.increment();
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 获取SQL对应的预编译语句
+     * 缓存命中且语句空闲时直接复用；语句正被占用（同一连接上同一SQL嵌套使用）时
+     * 返回一个不进入缓存的新语句，关闭时真正释放
+     * @param physical 物理连接
+     * @param sql SQL文本
+     * @return 预编译语句
+     * @throws SQLException 预编译失败
+     */
+    public synchronized PreparedStatement prepare(Connection physical, String sql) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && cached.isEvicted()) {
+            statements.remove(sql);
+            cached = null;
+        }
+        if (cached != null && cached.tryCheckout()) {
+            HITS.increment();
+            return cached.newProxy();
+        }
+        MISSES.increment();
+        PreparedStatement pstmt = physical.prepareStatement(sql);
+        if (cached != null) {
+            return pstmt;
+        }
+        cached = new CachedStatement(pstmt);
+        cached.tryCheckout();
+        statements.put(sql, cached);
+        return cached.newProxy();
+    }
+
+    /**
+     * 关闭所有缓存的语句
+     * 在物理连接被丢弃前调用
+     */
+    public synchronized void clear() {
+        for (CachedStatement cached : statements.values()) {
+            cached.evict();
+        }
+        statements.clear();
+    }
+
+    /**
+     * 获取全局命中次数
+     * @return 命中次数
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * 获取全局未命中次数
+     * @return 未命中次数
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * 获取全局淘汰次数
+     * @return 淘汰次数
+     */
+    public static long getEvictionCount() {
+        return EVICTIONS.sum();
+    }
+
+    /**
+     * 缓存条目
+     * 持有物理语句，记录当前是否被借出以及是否已被淘汰
+     */
+    private static final class CachedStatement {
+        private final PreparedStatement physical;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * 尝试借出语句
+         * @return 语句空闲且未被淘汰时返回true
+         */
+        private synchronized boolean tryCheckout() {
+            if (inUse || evicted) {
+                return false;
+            }
+            inUse = true;
+            return true;
+        }
+
+        private PreparedStatement newProxy() {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new CheckoutHandler(this));
+        }
+
+        private synchronized boolean isEvicted() {
+            return evicted;
+        }
+
+        /**
+         * 借用者关闭语句时调用
+         * 已被淘汰的语句真正关闭，否则清空参数和批处理等待复用；清空失败时淘汰并关闭，不会带着上一个借用者的状态放回缓存
+         */
+        private synchronized void checkin() throws SQLException {
+            try {
+                if (!evicted) {
+                    physical.clearParameters();
+                    physical.clearBatch();
+                    return;
+                }
+            } catch (SQLException e) {
+                evicted = true;
+                EVICTIONS.increment();
+            } finally {
+                inUse = false;
+            }
+            physical.close();
+        }
+
+        /**
+         * 从缓存中淘汰
+         * 空闲的语句立即关闭，正在使用的语句在归还时关闭
+         */
+        private synchronized void evict() {
+            evicted = true;
+            if (!inUse) {
+                try {
+                    physical.close();
+                } catch (SQLException e) {
+                    // 语句已不可用，忽略关闭异常
+                }
+            }
+        }
+    }
+
+    /**
+     * 语句代理的调用处理器
+     * 拦截close()/isClosed()，其余方法转发给物理语句
+     */
+    private static final class CheckoutHandler implements InvocationHandler {
+        private final CachedStatement cached;
+        private boolean closed;
+
+        private CheckoutHandler(CachedStatement cached) {
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        cached.checkin();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("语句已关闭");
+            }
+            try {
+                return method.invoke(cached.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
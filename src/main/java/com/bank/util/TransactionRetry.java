@@ -0,0 +1,141 @@
+package com.bank.util;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 事务重试工具类
+ * 识别InnoDB死锁和锁等待超时这两类可重试的错误，并提供带随机抖动的有界退避
+ * 重试参数从db.properties读取，未配置时使用默认值：
+ * tx.retry.maxAttempts=5, tx.retry.baseBackoff=10(ms), tx.retry.maxBackoff=200(ms)
+ * 重试相关的计数通过静态getter对外暴露
+ */
+public final class TransactionRetry {
+    /** MySQL死锁错误码 */
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    /** MySQL锁等待超时错误码 */
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+    /** SQL标准中"事务回滚"类SQLState的前缀，40001为序列化失败（死锁） */
+    private static final String SQLSTATE_TRANSACTION_ROLLBACK = "40";
+
+    /** 最大尝试次数（含第一次） */
+    private static final int MAX_ATTEMPTS = Math.max(1, DBUtil.getIntProperty("tx.retry.maxAttempts", 5));
+    /** 退避基数（毫秒），第n次重试的退避上限为 base * 2^(n-1) */
+    private static final long BASE_BACKOFF_MILLIS = Math.max(1L, DBUtil.getLongProperty("tx.retry.baseBackoff", 10L));
+    /** 单次退避上限（毫秒） */
+    private static final long MAX_BACKOFF_MILLIS = Math.max(BASE_BACKOFF_MILLIS, DBUtil.getLongProperty("tx.retry.maxBackoff", 200L));
+
+    /** 遇到死锁的次数 */
+    private static final LongAdder DEADLOCKS = new LongAdder();
+    /** 遇到锁等待超时的次数 */
+    private static final LongAdder LOCK_WAIT_TIMEOUTS = new LongAdder();
+    /** 实际发起重试的次数 */
+    private static final LongAdder RETRIES = new LongAdder();
+    /** 重试次数耗尽仍失败的次数 */
+    private static final LongAdder EXHAUSTED = new LongAdder();
+
+    /**
+     * 可重试错误的类型
+     */
+    public enum Kind {
+        /** 死锁（或其他序列化失败） */
+        DEADLOCK,
+        /** 锁等待超时 */
+        LOCK_WAIT_TIMEOUT,
+        /** 不可重试的错误 */
+        NONE
+    }
+
+    private TransactionRetry() {
+    }
+
+    /**
+     * 判断异常属于哪类错误
+     * @param e SQL异常
+     * @return 错误类型
+     */
+    public static Kind classify(SQLException e) {
+        for (SQLException cur = e; cur != null; cur = cur.getNextException()) {
+            if (cur.getErrorCode() == ER_LOCK_DEADLOCK) {
+                return Kind.DEADLOCK;
+            }
+            if (cur.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) {
+                return Kind.LOCK_WAIT_TIMEOUT;
+            }
+            String state = cur.getSQLState();
+            if (state != null && state.startsWith(SQLSTATE_TRANSACTION_ROLLBACK)) {
+                return Kind.DEADLOCK;
+            }
+        }
+        return Kind.NONE;
+    }
+
+    /**
+     * 判断失败的事务是否应该重试，并记录相应计数
+     * 需要重试时会先按退避时间休眠再返回
+     * @param e 本次尝试抛出的SQL异常
+     * @param attempt 已经完成的尝试次数（从1开始）
+     * @return true-调用方应再尝试一次，false-不可重试或次数已耗尽
+     */
+    public static boolean shouldRetry(SQLException e, int attempt) {
+        Kind kind = classify(e);
+        if (kind == Kind.NONE) {
+            return false;
+        }
+        if (kind == Kind.DEADLOCK) {
+            DEADLOCKS.increment();
+        } else {
+            LOCK_WAIT_TIMEOUTS.increment();
+        }
+        if (attempt >= MAX_ATTEMPTS) {
+            EXHAUSTED.increment();
+            System.out.println("事务重试次数已耗尽（" + attempt + "次）：" + e.getMessage());
+            return false;
+        }
+
+        // 指数退避 + 全抖动，避免冲突双方以相同节奏再次相撞
+        long cap = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 20));
+        long sleep = ThreadLocalRandom.current().nextLong(cap + 1);
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        RETRIES.increment();
+        return true;
+    }
+
+    /**
+     * 获取遇到死锁的次数
+     * @return 死锁次数
+     */
+    public static long getDeadlockCount() {
+        return DEADLOCKS.sum();
+    }
+
+    /**
+     * 获取遇到锁等待超时的次数
+     * @return 锁等待超时次数
+     */
+    public static long getLockWaitTimeoutCount() {
+        return LOCK_WAIT_TIMEOUTS.sum();
+    }
+
+    /**
+     * 获取实际发起重试的次数
+     * @return 重试次数
+     */
+    public static long getRetryCount() {
+        return RETRIES.sum();
+    }
+
+    /**
+     * 获取重试次数耗尽仍失败的次数
+     * @return 耗尽次数
+     */
+    public static long getExhaustedCount() {
+        return EXHAUSTED.sum();
+    }
+}
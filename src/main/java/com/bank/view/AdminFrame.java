@@ -2,7 +2,10 @@ package com.bank.view;
 
 import com.bank.entity.Admin;
 import com.bank.entity.OperationLog;
+import com.bank.entity.Page;
+import com.bank.entity.UpdateResult;
 import com.bank.entity.User;
+import com.bank.entity.UserSummary;
 import com.bank.service.AdminService;
 import com.bank.service.OperationLogService;
 import com.bank.service.UserService;
@@ -18,6 +21,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.Graphics2D;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
@@ -26,6 +30,9 @@ import java.util.List;
  * 提供管理员管理用户、查看日志等功能
  */
 public class AdminFrame extends JFrame {
+    /** 用户列表每页加载的条数 */
+    private static final int USER_PAGE_SIZE = 100;
+
     /** 当前登录的管理员 */
     private final Admin currentAdmin;
     /** 管理员服务层 */
@@ -43,6 +50,12 @@ public class AdminFrame extends JFrame {
     private DefaultTableModel userTableModel;
     /** 日志表格数据模型 */
     private DefaultTableModel logTableModel;
+    /** 加载更多用户按钮，没有下一页时禁用 */
+    private JButton loadMoreUserBtn;
+    /** 已加载的最后一个用户的注册时间，作为下一页的查询起点 */
+    private LocalDateTime lastUserCreateTime;
+    /** 已加载的最后一个用户的账号，作为下一页的查询起点 */
+    private String lastUserAccount;
 
     /**
      * 构造函数
@@ -175,12 +188,14 @@ public class AdminFrame extends JFrame {
         JButton lockBtn = createButton("🔒 锁定用户", new Color(255, 165, 0));
         JButton unlockBtn = createButton("🔓 解锁用户", new Color(50, 205, 50));
         JButton viewBtn = createButton("👁️ 查看详情", new Color(128, 0, 128));
+        loadMoreUserBtn = createButton("⏬ 加载更多", new Color(0, 139, 139));
         JButton logoutBtn = createButton("🚪 退出管理", new Color(255, 69, 0));
         
         buttonPanel.add(refreshBtn);
         buttonPanel.add(lockBtn);
         buttonPanel.add(unlockBtn);
         buttonPanel.add(viewBtn);
+        buttonPanel.add(loadMoreUserBtn);
         buttonPanel.add(Box.createHorizontalStrut(100));
         buttonPanel.add(logoutBtn);
         
@@ -194,6 +209,7 @@ public class AdminFrame extends JFrame {
         lockBtn.addActionListener(e -> lockUser());
         unlockBtn.addActionListener(e -> unlockUser());
         viewBtn.addActionListener(e -> viewUserDetail());
+        loadMoreUserBtn.addActionListener(e -> loadMoreUsers());
         logoutBtn.addActionListener(e -> logout());
         
         return panel;
@@ -285,15 +301,32 @@ public class AdminFrame extends JFrame {
 
     /**
      * 加载用户数据到表格
-     * 从数据库查询所有用户并显示
+     * 清空表格后加载第一页用户
      */
     private void loadUserData() {
         userTableModel.setRowCount(0);
-        List<User> users = userService.findAllUsers();
+        lastUserCreateTime = null;
+        lastUserAccount = null;
+        loadMoreUsers();
+    }
+
+    /**
+     * 加载下一页用户并追加到表格末尾
+     * 以已加载的最后一个用户为起点键集分页查询，每次只取一页，不会把整张用户表读入内存；
+     * 列表只查询摘要字段，密码和身份证号不会进入管理界面
+     */
+    private void loadMoreUsers() {
+        Page<UserSummary> page = userService.findUserSummaryPage(null, lastUserCreateTime, lastUserAccount, USER_PAGE_SIZE);
+        UserSummary last = page.getLast();
+        if (last != null) {
+            lastUserCreateTime = last.getCreateTime();
+            lastUserAccount = last.getAccount();
+        }
+        loadMoreUserBtn.setEnabled(page.isHasMore());
         
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         
-        for (User user : users) {
+        for (UserSummary user : page.getItems()) {
             Object[] row = new Object[6];
             row[0] = user.getAccount();
             row[1] = user.getName();
@@ -348,14 +381,17 @@ public class AdminFrame extends JFrame {
         
         int result = CustomDialog.showConfirmDialog(this, "确定要锁定用户 " + account + " 吗？", "确认", JOptionPane.YES_NO_OPTION);
         if (result == JOptionPane.YES_OPTION) {
-            boolean success = userService.lockAccount(account);
-            if (success) {
+            UpdateResult update = changeStatus(account, 0);
+            if (update.isSuccess()) {
                 logService.logOperation(currentAdmin.getId(), currentAdmin.getName(), 
                     "LOCK_USER", "锁定用户账号", account);
                 CustomDialog.showMessageDialog(this, "锁定成功！", "提示", JOptionPane.INFORMATION_MESSAGE);
                 loadUserData();
+            } else if (update == UpdateResult.CONFLICT) {
+                refreshUserRow(account);
+                CustomDialog.showMessageDialog(this, "锁定失败：该用户的状态刚被其他操作修改，已刷新该行，请确认后重试！", "提示", JOptionPane.WARNING_MESSAGE);
             } else {
-                CustomDialog.showMessageDialog(this, "锁定失败！", "提示", JOptionPane.ERROR_MESSAGE);
+                CustomDialog.showMessageDialog(this, "锁定失败：" + update.getMessage() + "！", "提示", JOptionPane.ERROR_MESSAGE);
             }
         }
     }
@@ -381,18 +417,54 @@ public class AdminFrame extends JFrame {
         
         int result = CustomDialog.showConfirmDialog(this, "确定要解锁用户 " + account + " 吗？", "确认", JOptionPane.YES_NO_OPTION);
         if (result == JOptionPane.YES_OPTION) {
-            boolean success = userService.unlockAccount(account);
-            if (success) {
+            UpdateResult update = changeStatus(account, 1);
+            if (update.isSuccess()) {
                 logService.logOperation(currentAdmin.getId(), currentAdmin.getName(), 
                     "UNLOCK_USER", "解锁用户账号", account);
                 CustomDialog.showMessageDialog(this, "解锁成功！", "提示", JOptionPane.INFORMATION_MESSAGE);
                 loadUserData();
+            } else if (update == UpdateResult.CONFLICT) {
+                refreshUserRow(account);
+                CustomDialog.showMessageDialog(this, "解锁失败：该用户的状态刚被其他操作修改，已刷新该行，请确认后重试！", "提示", JOptionPane.WARNING_MESSAGE);
             } else {
-                CustomDialog.showMessageDialog(this, "解锁失败！", "提示", JOptionPane.ERROR_MESSAGE);
+                CustomDialog.showMessageDialog(this, "解锁失败：" + update.getMessage() + "！", "提示", JOptionPane.ERROR_MESSAGE);
             }
         }
     }
 
+    /**
+     * 按列表中显示的状态修改用户状态
+     * 锁定只在当前为正常时生效，解锁只在当前为锁定时生效；列表加载后状态被其他管理员改过时返回CONFLICT，
+     * 期间的存取款和转账不影响
+     * @param account 账号
+     * @param status 目标状态
+     * @return 更新结果
+     */
+    private UpdateResult changeStatus(String account, int status) {
+        return userService.changeStatus(account, status, status == 0 ? 1 : 0);
+    }
+
+    /**
+     * 从数据库重新读取一个用户并更新其所在行的余额和状态
+     * 用户已不存在时移除该行；不重新加载整个列表，已翻过的页保持不变
+     * @param account 账号
+     */
+    private void refreshUserRow(String account) {
+        for (int i = 0; i < userTableModel.getRowCount(); i++) {
+            if (!account.equals(userTableModel.getValueAt(i, 0))) {
+                continue;
+            }
+            User user = userService.findByAccount(account);
+            if (user == null) {
+                userTableModel.removeRow(i);
+            } else {
+                userTableModel.setValueAt("¥" + String.format("%.2f", user.getBalance()), i, 3);
+                userTableModel.setValueAt(user.isActive() ? "正常" : "已锁定", i, 4);
+            }
+            return;
+        }
+    }
+
     /**
      * 查看选中用户的详细信息
      * 弹出对话框显示用户完整信息
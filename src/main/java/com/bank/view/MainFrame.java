@@ -1,5 +1,6 @@
 package com.bank.view;
 
+import com.bank.entity.TransferResult;
 import com.bank.entity.User;
 import com.bank.service.UserService;
 import com.bank.service.impl.UserServiceImpl;
@@ -11,10 +12,11 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.math.BigDecimal;
+import java.util.UUID;
 
 /**
  * 主功能界面类
- * 提供用户登录后的个人中心功能，包括存款、取款、查询余额、转账和注销账户等操作
+ * 提供用户登录后的个人中心功能，包括存款、取款、查询余额、转账、查看交易记录和注销账户等操作
  * 继承自JFrame，创建银行管理系统的用户个人中心窗口
  */
 public class MainFrame extends JFrame {
@@ -36,11 +38,18 @@ public class MainFrame extends JFrame {
     private JButton checkBalanceBtn;
     /** 转账按钮 */
     private JButton transferBtn;
+    /** 交易记录按钮 */
+    private JButton historyBtn;
     /** 注销账户按钮 */
     private JButton deleteAccountBtn;
     /** 退出系统按钮 */
     private JButton exitBtn;
 
+    /** 尚未得到明确结果的资金操作的请求键，相同操作重试时复用，避免重复扣款或入账 */
+    private String pendingRequestKey;
+    /** pendingRequestKey对应的操作描述 */
+    private String pendingRequestDescription;
+
     /**
      * 构造函数
      * @param user 当前登录的用户对象
@@ -50,7 +59,7 @@ public class MainFrame extends JFrame {
         this.currentUser = user;
         
         setTitle("银行管理系统 - 个人中心");
-        setSize(500, 650);
+        setSize(500, 710);
         setLocationRelativeTo(null);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setResizable(false);
@@ -106,6 +115,7 @@ public class MainFrame extends JFrame {
         withdrawBtn = createStyledButton("💸 取款", new Color(255, 165, 0));
         checkBalanceBtn = createStyledButton("👁️ 查看余额", new Color(0, 206, 209));
         transferBtn = createStyledButton("💱 转账", new Color(255, 20, 147));
+        historyBtn = createStyledButton("📜 交易记录", new Color(60, 179, 113));
         deleteAccountBtn = createStyledButton("🗑️ 注销账户", new Color(255, 69, 0));
         exitBtn = createStyledButton("❌ 退出系统", new Color(138, 43, 226));
     }
@@ -216,13 +226,14 @@ public class MainFrame extends JFrame {
         panel.add(balanceLabel);
         panel.add(Box.createVerticalStrut(25));
         
-        JPanel buttonGrid = new JPanel(new GridLayout(3, 2, 15, 15));
+        JPanel buttonGrid = new JPanel(new GridLayout(4, 2, 15, 15));
         buttonGrid.setBackground(new Color(245, 247, 250));
         
         buttonGrid.add(depositBtn);
         buttonGrid.add(withdrawBtn);
         buttonGrid.add(checkBalanceBtn);
         buttonGrid.add(transferBtn);
+        buttonGrid.add(historyBtn);
         buttonGrid.add(deleteAccountBtn);
         buttonGrid.add(exitBtn);
         
@@ -264,6 +275,13 @@ public class MainFrame extends JFrame {
             }
         });
         
+        historyBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                new TransactionHistoryDialog(MainFrame.this, userService, currentUser.getAccount()).setVisible(true);
+            }
+        });
+        
         deleteAccountBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -286,7 +304,7 @@ public class MainFrame extends JFrame {
     /**
      * 执行存款操作
      * 通过输入对话框获取存款金额，验证后调用服务层完成存款
-     * 成功后更新当前用户余额和界面显示
+     * 成功后重新查询余额并更新界面显示（重复提交时服务端直接返回成功，不能在本地再累加一次金额）
      */
     private void deposit() {
         String amountStr = CustomDialog.showInputDialog(this, "请输入存款金额：", "存款");
@@ -301,10 +319,12 @@ public class MainFrame extends JFrame {
                 return;
             }
             
-            boolean success = userService.deposit(currentUser.getAccount(), amount);
+            String requestKey = requestKeyFor("DEPOSIT " + amount);
+            boolean success = userService.deposit(currentUser.getAccount(), amount, requestKey);
+            // 返回了true或false都是明确的结果；结果未知时抛出异常，保留请求键
+            clearRequestKey();
             if (success) {
-                currentUser.setBalance(currentUser.getBalance().add(amount));
-                balanceLabel.setText("当前余额：¥" + currentUser.getBalance());
+                refreshBalance();
                 CustomDialog.showMessageDialog(this, "存款成功！", "提示", JOptionPane.INFORMATION_MESSAGE);
             } else {
                 CustomDialog.showMessageDialog(this, "存款失败！", "提示", JOptionPane.ERROR_MESSAGE);
@@ -312,7 +332,7 @@ public class MainFrame extends JFrame {
         } catch (NumberFormatException e) {
             CustomDialog.showMessageDialog(this, "请输入有效的数字！", "提示", JOptionPane.WARNING_MESSAGE);
         } catch (Exception e) {
-            CustomDialog.showMessageDialog(this, "存款失败！请检查数据库连接或配置。\n错误信息：" + e.getMessage(), "提示", JOptionPane.ERROR_MESSAGE);
+            CustomDialog.showMessageDialog(this, "存款结果未知！请稍后查看余额确认，重新提交相同的存款不会重复入账。\n错误信息：" + e.getMessage(), "提示", JOptionPane.ERROR_MESSAGE);
             e.printStackTrace();
         }
     }
@@ -320,7 +340,7 @@ public class MainFrame extends JFrame {
     /**
      * 执行取款操作
      * 通过输入对话框获取取款金额，验证余额后调用服务层完成取款
-     * 成功后更新当前用户余额和界面显示
+     * 成功后重新查询余额并更新界面显示
      */
     private void withdraw() {
         String amountStr = CustomDialog.showInputDialog(this, "请输入取款金额：", "取款");
@@ -340,10 +360,11 @@ public class MainFrame extends JFrame {
                 return;
             }
             
-            boolean success = userService.withdraw(currentUser.getAccount(), amount);
+            String requestKey = requestKeyFor("WITHDRAW " + amount);
+            boolean success = userService.withdraw(currentUser.getAccount(), amount, requestKey);
+            clearRequestKey();
             if (success) {
-                currentUser.setBalance(currentUser.getBalance().subtract(amount));
-                balanceLabel.setText("当前余额：¥" + currentUser.getBalance());
+                refreshBalance();
                 CustomDialog.showMessageDialog(this, "取款成功！", "提示", JOptionPane.INFORMATION_MESSAGE);
             } else {
                 CustomDialog.showMessageDialog(this, "取款失败！", "提示", JOptionPane.ERROR_MESSAGE);
@@ -351,14 +372,15 @@ public class MainFrame extends JFrame {
         } catch (NumberFormatException e) {
             CustomDialog.showMessageDialog(this, "请输入有效的数字！", "提示", JOptionPane.WARNING_MESSAGE);
         } catch (Exception e) {
-            CustomDialog.showMessageDialog(this, "取款失败！请检查数据库连接或配置。\n错误信息：" + e.getMessage(), "提示", JOptionPane.ERROR_MESSAGE);
+            CustomDialog.showMessageDialog(this, "取款结果未知！请稍后查看余额确认，重新提交相同的取款不会重复扣款。\n错误信息：" + e.getMessage(), "提示", JOptionPane.ERROR_MESSAGE);
             e.printStackTrace();
         }
     }
 
     /**
      * 查询当前账户余额
-     * 调用服务层查询最新余额，更新当前用户余额和界面显示
+     * 调用服务层查询最新余额，更新当前用户余额和界面显示；
+     * 用户看到最新余额后已能确认上一次结果未知的操作是否生效，之后的操作使用新的请求键
      */
     private void checkBalance() {
         try {
@@ -366,6 +388,7 @@ public class MainFrame extends JFrame {
             if (balance != null) {
                 currentUser.setBalance(balance);
                 balanceLabel.setText("当前余额：¥" + balance);
+                clearRequestKey();
                 CustomDialog.showMessageDialog(this, "当前余额：¥" + balance, "提示", JOptionPane.INFORMATION_MESSAGE);
             } else {
                 CustomDialog.showMessageDialog(this, "查询失败！", "提示", JOptionPane.ERROR_MESSAGE);
@@ -379,7 +402,8 @@ public class MainFrame extends JFrame {
     /**
      * 执行转账操作
      * 通过输入对话框获取对方账号和转账金额，验证后调用服务层完成转账
-     * 成功后更新当前用户余额和界面显示
+     * 对方账号是否存在由转账事务本身校验，失败时按结果提示具体原因
+     * 成功后重新查询余额并更新界面显示
      */
     private void transfer() {
         String toAccount = CustomDialog.showInputDialog(this, "请输入对方账号：", "转账");
@@ -391,6 +415,12 @@ public class MainFrame extends JFrame {
             CustomDialog.showMessageDialog(this, "对方账号必须是11位数字！", "提示", JOptionPane.WARNING_MESSAGE);
             return;
         }
+
+        // 账号过滤器能在内存中判定账号一定不存在，输错账号时不必输入金额、也不访问数据库
+        if (!userService.accountMightExist(toAccount)) {
+            CustomDialog.showMessageDialog(this, "对方账号不存在！", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
         
         String amountStr = CustomDialog.showInputDialog(this, "请输入转账金额：", "转账");
         if (amountStr == null) {
@@ -409,27 +439,62 @@ public class MainFrame extends JFrame {
                 return;
             }
             
-            if (userService.findByAccount(toAccount) == null) {
-                CustomDialog.showMessageDialog(this, "对方账号不存在！", "提示", JOptionPane.WARNING_MESSAGE);
-                return;
+            String requestKey = requestKeyFor("TRANSFER " + toAccount + " " + amount);
+            TransferResult result = userService.transferFunds(currentUser.getAccount(), toAccount, amount, requestKey);
+            // 系统错误和重复请求时转账是否生效未知，保留请求键，重试同一笔转账不会重复执行
+            if (result.getStatus() != TransferResult.Status.SYSTEM_ERROR
+                    && result.getStatus() != TransferResult.Status.DUPLICATE_REQUEST) {
+                clearRequestKey();
             }
-            
-            boolean success = userService.transfer(currentUser.getAccount(), toAccount, amount);
-            if (success) {
-                currentUser.setBalance(currentUser.getBalance().subtract(amount));
-                balanceLabel.setText("当前余额：¥" + currentUser.getBalance());
+            if (result.isSuccess()) {
+                refreshBalance();
                 CustomDialog.showMessageDialog(this, "转账成功！", "提示", JOptionPane.INFORMATION_MESSAGE);
             } else {
-                CustomDialog.showMessageDialog(this, "转账失败！", "提示", JOptionPane.ERROR_MESSAGE);
+                CustomDialog.showMessageDialog(this, "转账失败：" + result.getMessage() + "！", "提示", JOptionPane.ERROR_MESSAGE);
             }
         } catch (NumberFormatException e) {
             CustomDialog.showMessageDialog(this, "请输入有效的数字！", "提示", JOptionPane.WARNING_MESSAGE);
         } catch (Exception e) {
-            CustomDialog.showMessageDialog(this, "转账失败！请检查数据库连接或配置。\n错误信息：" + e.getMessage(), "提示", JOptionPane.ERROR_MESSAGE);
+            CustomDialog.showMessageDialog(this, "转账结果未知！请稍后查看余额确认，重新提交相同的转账不会重复扣款。\n错误信息：" + e.getMessage(), "提示", JOptionPane.ERROR_MESSAGE);
             e.printStackTrace();
         }
     }
 
+    /**
+     * 重新查询当前用户余额并更新界面显示
+     * 查询失败时保留原来的显示
+     */
+    private void refreshBalance() {
+        BigDecimal balance = userService.checkBalance(currentUser.getAccount());
+        if (balance != null) {
+            currentUser.setBalance(balance);
+            balanceLabel.setText("当前余额：¥" + balance);
+        }
+    }
+
+    /**
+     * 获取资金操作的请求键
+     * 在输入验证通过、确认提交时调用；与上一次尚未得到明确结果的操作相同时复用其请求键，
+     * 服务端据此识别重试，保证只执行一次
+     * @param description 操作描述
+     * @return 请求键
+     */
+    private String requestKeyFor(String description) {
+        if (!description.equals(pendingRequestDescription)) {
+            pendingRequestKey = UUID.randomUUID().toString();
+            pendingRequestDescription = description;
+        }
+        return pendingRequestKey;
+    }
+
+    /**
+     * 操作得到明确结果后清除请求键，下一次操作使用新键
+     */
+    private void clearRequestKey() {
+        pendingRequestKey = null;
+        pendingRequestDescription = null;
+    }
+
     /**
      * 注销当前账户
      * 显示确认对话框，用户确认后调用服务层删除账户
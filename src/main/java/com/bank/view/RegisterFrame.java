@@ -436,6 +436,10 @@ public class RegisterFrame extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 String account = userService.generateAccount();
+                if (account == null) {
+                    CustomDialog.showMessageDialog(RegisterFrame.this, "生成账号失败，请检查数据库连接后重试！", "错误", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
                 accountField.setText(account);
             }
         });
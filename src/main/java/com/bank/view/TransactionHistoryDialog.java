@@ -0,0 +1,179 @@
+package com.bank.view;
+
+import com.bank.entity.LedgerEntry;
+import com.bank.entity.Page;
+import com.bank.service.UserService;
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 交易记录对话框
+ * 按时间倒序显示当前用户的资金流水，滚动接近底部时在后台线程中加载下一页，
+ * 每页按(account, id)键集分页查询，打开对话框只查询第一页，流水再多也能立即显示
+ * 表格最多保留MAX_ROWS行，超出后移除最早加载的行，内存占用与流水总数无关
+ */
+public class TransactionHistoryDialog extends JDialog {
+    /** 每页加载的流水条数 */
+    private static final int PAGE_SIZE = 50;
+    /** 表格中最多保留的行数 */
+    private static final int MAX_ROWS = 2000;
+    /** 距底部还剩多少行时预加载下一页 */
+    private static final int PREFETCH_ROWS = 10;
+
+    private final UserService userService;
+    private final String account;
+    private final DefaultTableModel tableModel;
+    private final JTable table;
+    private final JScrollPane scrollPane;
+    private final JLabel statusLabel;
+
+    /** 已加载的最后一条流水ID，作为下一页的查询起点 */
+    private Long lastId;
+    /** 是否还有更早的流水 */
+    private boolean hasMore = true;
+    /** 是否正在加载，避免滚动时重复发起查询 */
+    private boolean loading;
+    /** 已加载的流水总条数（含已从表格顶部移除的） */
+    private int loadedCount;
+
+    /**
+     * 构造函数
+     * @param parent 父窗口
+     * @param userService 用户服务
+     * @param account 要查看的账号
+     */
+    public TransactionHistoryDialog(Frame parent, UserService userService, String account) {
+        super(parent, "交易记录 - " + account, true);
+        this.userService = userService;
+        this.account = account;
+
+        setSize(720, 480);
+        setLocationRelativeTo(parent);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        tableModel = new DefaultTableModel() {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        tableModel.addColumn("时间");
+        tableModel.addColumn("类型");
+        tableModel.addColumn("金额");
+        tableModel.addColumn("对方账号");
+        tableModel.addColumn("余额");
+        table = new JTable(tableModel);
+        table.setFont(new Font("微软雅黑", Font.PLAIN, 12));
+        table.setRowHeight(25);
+
+        scrollPane = new JScrollPane(table);
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> loadMoreIfNearBottom());
+
+        statusLabel = new JLabel(" ");
+        statusLabel.setFont(new Font("微软雅黑", Font.PLAIN, 12));
+        statusLabel.setForeground(new Color(97, 97, 97));
+        statusLabel.setBorder(new EmptyBorder(5, 10, 5, 10));
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(new Color(245, 247, 250));
+        panel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(statusLabel, BorderLayout.SOUTH);
+        add(panel);
+
+        loadNextPage();
+    }
+
+    /**
+     * 滚动条接近底部时加载下一页
+     */
+    private void loadMoreIfNearBottom() {
+        if (loading || !hasMore) {
+            return;
+        }
+        JScrollBar bar = scrollPane.getVerticalScrollBar();
+        int threshold = PREFETCH_ROWS * table.getRowHeight();
+        if (bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - threshold) {
+            loadNextPage();
+        }
+    }
+
+    /**
+     * 在后台线程中查询下一页，完成后在事件调度线程中追加到表格
+     */
+    private void loadNextPage() {
+        loading = true;
+        statusLabel.setText("正在加载...");
+        Long beforeId = lastId;
+        new SwingWorker<Page<LedgerEntry>, Void>() {
+            @Override
+            protected Page<LedgerEntry> doInBackground() {
+                return userService.findTransactionHistory(account, beforeId, PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                loading = false;
+                try {
+                    appendPage(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    hasMore = false;
+                    statusLabel.setText("加载失败：" + e.getCause().getMessage());
+                    e.printStackTrace();
+                    return;
+                }
+                // 第一页不足以填满可视区域时不会产生滚动事件，需要主动继续加载
+                SwingUtilities.invokeLater(TransactionHistoryDialog.this::loadMoreIfNearBottom);
+            }
+        }.execute();
+    }
+
+    /**
+     * 把一页流水追加到表格末尾，超出行数上限时移除顶部的行并保持当前滚动位置
+     * @param page 流水分页
+     */
+    private void appendPage(Page<LedgerEntry> page) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        for (LedgerEntry entry : page.getItems()) {
+            Object[] row = new Object[5];
+            row[0] = entry.getCreateTime() != null ? entry.getCreateTime().format(formatter) : "";
+            row[1] = entry.getType() != null ? entry.getType().getLabel() : "";
+            row[2] = (entry.getAmount().signum() > 0 ? "+¥" : "-¥") + String.format("%.2f", entry.getAmount().abs());
+            row[3] = entry.getCounterparty() != null ? entry.getCounterparty() : "";
+            // 条带账户的存款记在子行上，没有变动后余额
+            row[4] = entry.getBalanceAfter() == null ? "" : "¥" + String.format("%.2f", entry.getBalanceAfter());
+            tableModel.addRow(row);
+        }
+        loadedCount += page.getItems().size();
+        LedgerEntry last = page.getLast();
+        if (last != null) {
+            lastId = last.getId();
+        }
+        hasMore = page.isHasMore();
+
+        int overflow = tableModel.getRowCount() - MAX_ROWS;
+        if (overflow > 0) {
+            JScrollBar bar = scrollPane.getVerticalScrollBar();
+            int value = bar.getValue();
+            for (int i = 0; i < overflow; i++) {
+                tableModel.removeRow(0);
+            }
+            bar.setValue(Math.max(0, value - overflow * table.getRowHeight()));
+        }
+
+        if (loadedCount == 0) {
+            statusLabel.setText("暂无交易记录");
+        } else if (loadedCount > tableModel.getRowCount()) {
+            statusLabel.setText("已加载" + loadedCount + "条，仅保留最近浏览的" + tableModel.getRowCount() + "条"
+                + (hasMore ? "，继续滚动加载更早的记录" : "，已到最早的记录"));
+        } else {
+            statusLabel.setText("已加载" + loadedCount + "条" + (hasMore ? "，继续滚动加载更早的记录" : "，已到最早的记录"));
+        }
+    }
+}